@@ -9,13 +9,22 @@ import com.facebook.react.bridge.WritableMap;
 import com.google.android.gms.vision.barcode.Barcode;
 
 import org.reactnative.barcodedetector.BarcodeFormatUtils;
+import org.reactnative.camera.utils.AnalysisFrame;
 import org.reactnative.camera.utils.ImageDimensions;
 import org.reactnative.frame.RNFrame;
 import org.reactnative.frame.RNFrameFactory;
 import org.reactnative.barcodedetector.RNBarcodeDetector;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
 
 public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, SparseArray<Barcode>> {
 
+  private AnalysisFrame mFrame;
+  private Rect mRegionOfInterest;
+  private int mOffsetX;
+  private int mOffsetY;
+  private boolean mInvertImageData;
+  // the frame is only copied into mImageData for events that carry it
+  private boolean mIncludeImageData;
   private byte[] mImageData;
   private int mWidth;
   private int mHeight;
@@ -31,23 +40,26 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, S
   public BarcodeDetectorAsyncTask(
           BarcodeDetectorAsyncTaskDelegate delegate,
           RNBarcodeDetector barcodeDetector,
-          byte[] imageData,
-          int width,
-          int height,
-          int rotation,
+          AnalysisFrame frame,
+          Rect regionOfInterest,
+          boolean invertImageData,
+          boolean includeImageData,
           float density,
           int facing,
           int viewWidth,
           int viewHeight,
           int viewPaddingLeft,
           int viewPaddingTop) {
-    mImageData = imageData;
-    mWidth = width;
-    mHeight = height;
-    mRotation = rotation;
+    mFrame = frame;
+    mRegionOfInterest = regionOfInterest;
+    mInvertImageData = invertImageData;
+    mIncludeImageData = includeImageData;
+    mWidth = frame.getWidth();
+    mHeight = frame.getHeight();
+    mRotation = frame.getRotation();
     mDelegate = delegate;
     mBarcodeDetector = barcodeDetector;
-    mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+    mImageDimensions = new ImageDimensions(mWidth, mHeight, mRotation, facing);
     mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
     mScaleY = (double) (viewHeight) / (mImageDimensions.getHeight() * density);
     mPaddingLeft = viewPaddingLeft;
@@ -56,12 +68,21 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, S
 
   @Override
   protected SparseArray<Barcode> doInBackground(Void... ignored) {
+    FrameAnalysisScheduler.applyLanePriority();
     if (isCancelled() || mDelegate == null || mBarcodeDetector == null || !mBarcodeDetector.isOperational()) {
       return null;
     }
 
-    RNFrame frame = RNFrameFactory.buildFrame(mImageData, mWidth, mHeight, mRotation);
-    return mBarcodeDetector.detect(frame);
+    // barcodes are looked for in the region only and reported in full frame coordinates
+    AnalysisFrame analyzed = mFrame.crop(mRegionOfInterest);
+    mOffsetX = analyzed.getUprightLeft();
+    mOffsetY = analyzed.getUprightTop();
+    RNFrame frame = RNFrameFactory.buildFrame(analyzed.getDirectData(mInvertImageData), analyzed.getWidth(), analyzed.getHeight(), mRotation);
+    SparseArray<Barcode> barcodes = mBarcodeDetector.detect(frame);
+    if (barcodes != null && barcodes.size() > 0 && mIncludeImageData) {
+      mImageData = mInvertImageData ? mFrame.getInvertedData() : mFrame.getData();
+    }
+    return barcodes;
   }
 
   @Override
@@ -95,7 +116,10 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, S
     return barcodesList;
   }
 
-  private WritableMap processBounds(Rect frame) {
+  private WritableMap processBounds(Rect detectedFrame) {
+    // bounds found on a crop are relative to it
+    Rect frame = new Rect(detectedFrame);
+    frame.offset(mOffsetX, mOffsetY);
     WritableMap origin = Arguments.createMap();
     int x = frame.left;
     int y = frame.top;
@@ -1,5 +1,6 @@
 package org.reactnative.camera.tasks;
 
+import android.graphics.Rect;
 import android.util.SparseArray;
 
 import com.facebook.react.bridge.Arguments;
@@ -8,14 +9,19 @@ import com.facebook.react.bridge.WritableMap;
 import com.google.android.cameraview.CameraView;
 import com.google.android.gms.vision.face.Face;
 
+import org.reactnative.camera.utils.AnalysisFrame;
 import org.reactnative.camera.utils.ImageDimensions;
 import org.reactnative.facedetector.FaceDetectorUtils;
 import org.reactnative.frame.RNFrame;
 import org.reactnative.frame.RNFrameFactory;
 import org.reactnative.facedetector.RNFaceDetector;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
 
 public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, SparseArray<Face>> {
-  private byte[] mImageData;
+  private AnalysisFrame mFrame;
+  private Rect mRegionOfInterest;
+  private int mOffsetX;
+  private int mOffsetY;
   private int mWidth;
   private int mHeight;
   private int mRotation;
@@ -30,10 +36,8 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Spar
   public FaceDetectorAsyncTask(
       FaceDetectorAsyncTaskDelegate delegate,
       RNFaceDetector faceDetector,
-      byte[] imageData,
-      int width,
-      int height,
-      int rotation,
+      AnalysisFrame frame,
+      Rect regionOfInterest,
       float density,
       int facing,
       int viewWidth,
@@ -41,13 +45,14 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Spar
       int viewPaddingLeft,
       int viewPaddingTop
   ) {
-    mImageData = imageData;
-    mWidth = width;
-    mHeight = height;
-    mRotation = rotation;
+    mFrame = frame;
+    mRegionOfInterest = regionOfInterest;
+    mWidth = frame.getWidth();
+    mHeight = frame.getHeight();
+    mRotation = frame.getRotation();
     mDelegate = delegate;
     mFaceDetector = faceDetector;
-    mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+    mImageDimensions = new ImageDimensions(mWidth, mHeight, mRotation, facing);
     mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
     mScaleY = (double) (viewHeight) / (mImageDimensions.getHeight() * density);
     mPaddingLeft = viewPaddingLeft;
@@ -56,11 +61,16 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Spar
 
   @Override
   protected SparseArray<Face> doInBackground(Void... ignored) {
+    FrameAnalysisScheduler.applyLanePriority();
     if (isCancelled() || mDelegate == null || mFaceDetector == null || !mFaceDetector.isOperational()) {
       return null;
     }
 
-    RNFrame frame = RNFrameFactory.buildFrame(mImageData, mWidth, mHeight, mRotation);
+    // faces are looked for in the region only and reported in full frame coordinates
+    AnalysisFrame analyzed = mFrame.crop(mRegionOfInterest);
+    mOffsetX = analyzed.getUprightLeft();
+    mOffsetY = analyzed.getUprightTop();
+    RNFrame frame = RNFrameFactory.buildFrame(analyzed.getDirectData(false), analyzed.getWidth(), analyzed.getHeight(), mRotation);
     return mFaceDetector.detect(frame);
   }
 
@@ -83,7 +93,7 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Spar
 
     for(int i = 0; i < faces.size(); i++) {
       Face face = faces.valueAt(i);
-      WritableMap serializedFace = FaceDetectorUtils.serializeFace(face, mScaleX, mScaleY, mWidth, mHeight, mPaddingLeft, mPaddingTop);
+      WritableMap serializedFace = FaceDetectorUtils.serializeFace(face, mScaleX, mScaleY, mWidth, mHeight, mPaddingLeft, mPaddingTop, mOffsetX, mOffsetY);
       if (mImageDimensions.getFacing() == CameraView.FACING_FRONT) {
         serializedFace = FaceDetectorUtils.rotateFaceX(serializedFace, mImageDimensions.getWidth(), mScaleX);
       } else {
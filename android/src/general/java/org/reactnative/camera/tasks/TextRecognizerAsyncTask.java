@@ -1,5 +1,6 @@
 package org.reactnative.camera.tasks;
 
+import android.graphics.Rect;
 import android.util.SparseArray;
 
 import com.facebook.react.bridge.Arguments;
@@ -7,25 +8,28 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.uimanager.ThemedReactContext;
 import com.google.android.cameraview.CameraView;
 import com.google.android.gms.vision.text.Line;
 import com.google.android.gms.vision.text.Text;
 import com.google.android.gms.vision.text.TextBlock;
-import com.google.android.gms.vision.text.TextRecognizer;
 
+import org.reactnative.camera.utils.AnalysisFrame;
 import org.reactnative.camera.utils.ImageDimensions;
 import org.reactnative.facedetector.FaceDetectorUtils;
 import org.reactnative.frame.RNFrame;
 import org.reactnative.frame.RNFrameFactory;
+import org.reactnative.textrecognizer.RNTextRecognizer;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
 
 
 public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, SparseArray<TextBlock>> {
 
   private TextRecognizerAsyncTaskDelegate mDelegate;
-  private ThemedReactContext mThemedReactContext;
-  private TextRecognizer mTextRecognizer;
-  private byte[] mImageData;
+  private RNTextRecognizer mTextRecognizer;
+  private AnalysisFrame mFrame;
+  private Rect mRegionOfInterest;
+  private int mOffsetX;
+  private int mOffsetY;
   private int mWidth;
   private int mHeight;
   private int mRotation;
@@ -37,11 +41,9 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Sp
 
   public TextRecognizerAsyncTask(
           TextRecognizerAsyncTaskDelegate delegate,
-          ThemedReactContext themedReactContext,
-          byte[] imageData,
-          int width,
-          int height,
-          int rotation,
+          RNTextRecognizer textRecognizer,
+          AnalysisFrame frame,
+          Rect regionOfInterest,
           float density,
           int facing,
           int viewWidth,
@@ -50,12 +52,13 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Sp
           int viewPaddingTop
   ) {
     mDelegate = delegate;
-    mThemedReactContext = themedReactContext;
-    mImageData = imageData;
-    mWidth = width;
-    mHeight = height;
-    mRotation = rotation;
-    mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+    mTextRecognizer = textRecognizer;
+    mFrame = frame;
+    mRegionOfInterest = regionOfInterest;
+    mWidth = frame.getWidth();
+    mHeight = frame.getHeight();
+    mRotation = frame.getRotation();
+    mImageDimensions = new ImageDimensions(mWidth, mHeight, mRotation, facing);
     mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
     mScaleY = (double) (viewHeight) / (mImageDimensions.getHeight() * density);
     mPaddingLeft = viewPaddingLeft;
@@ -64,20 +67,21 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Sp
 
   @Override
   protected SparseArray<TextBlock> doInBackground(Void... ignored) {
-    if (isCancelled() || mDelegate == null) {
+    FrameAnalysisScheduler.applyLanePriority();
+    if (isCancelled() || mDelegate == null || mTextRecognizer == null || !mTextRecognizer.isOperational()) {
       return null;
     }
-    mTextRecognizer = new TextRecognizer.Builder(mThemedReactContext).build();
-    RNFrame frame = RNFrameFactory.buildFrame(mImageData, mWidth, mHeight, mRotation);
-    return mTextRecognizer.detect(frame.getFrame());
+    // text is looked for in the region only and reported in full frame coordinates
+    AnalysisFrame analyzed = mFrame.crop(mRegionOfInterest);
+    mOffsetX = analyzed.getUprightLeft();
+    mOffsetY = analyzed.getUprightTop();
+    RNFrame frame = RNFrameFactory.buildFrame(analyzed.getDirectData(false), analyzed.getWidth(), analyzed.getHeight(), mRotation);
+    return mTextRecognizer.detect(frame);
   }
 
   @Override
   protected void onPostExecute(SparseArray<TextBlock> textBlocks) {
     super.onPostExecute(textBlocks);
-    if (mTextRecognizer != null) {
-      mTextRecognizer.release();
-    }
     if (textBlocks != null) {
       WritableArray textBlocksList = Arguments.createArray();
       for (int i = 0; i < textBlocks.size(); ++i) {
@@ -104,18 +108,21 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Sp
 
     encodedText.putString("value", text.getValue());
 
-    int x = text.getBoundingBox().left;
-    int y = text.getBoundingBox().top;
+    // bounds found on a crop are relative to it
+    Rect box = new Rect(text.getBoundingBox());
+    box.offset(mOffsetX, mOffsetY);
+    int x = box.left;
+    int y = box.top;
 
-    if (text.getBoundingBox().left < mWidth / 2) {
+    if (box.left < mWidth / 2) {
       x = x + mPaddingLeft / 2;
-    } else if (text.getBoundingBox().left > mWidth /2) {
+    } else if (box.left > mWidth /2) {
       x = x - mPaddingLeft / 2;
     }
 
-    if (text.getBoundingBox().height() < mHeight / 2) {
+    if (box.height() < mHeight / 2) {
       y = y + mPaddingTop / 2;
-    } else if (text.getBoundingBox().height() > mHeight / 2) {
+    } else if (box.height() > mHeight / 2) {
       y = y - mPaddingTop / 2;
     }
 
@@ -124,8 +131,8 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Sp
     origin.putDouble("y", y * this.mScaleY);
 
     WritableMap size = Arguments.createMap();
-    size.putDouble("width", text.getBoundingBox().width() * this.mScaleX);
-    size.putDouble("height", text.getBoundingBox().height() * this.mScaleY);
+    size.putDouble("width", box.width() * this.mScaleX);
+    size.putDouble("height", box.height() * this.mScaleY);
 
     WritableMap bounds = Arguments.createMap();
     bounds.putMap("origin", origin);
@@ -22,6 +22,16 @@ public class FaceDetectorUtils {
   }
 
   public static WritableMap serializeFace(Face face, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop) {
+    return serializeFace(face, scaleX, scaleY, width, height, paddingLeft, paddingTop, 0, 0);
+  }
+
+  /**
+   * @param offsetX Horizontal position of the analyzed region in the upright frame, when the face
+   *                was detected on a crop of it.
+   * @param offsetY Vertical position of the analyzed region in the upright frame.
+   */
+  public static WritableMap serializeFace(Face face, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop,
+                                          int offsetX, int offsetY) {
     WritableMap encodedFace = Arguments.createMap();
 
     encodedFace.putInt("faceID", face.getId());
@@ -39,21 +49,23 @@ public class FaceDetectorUtils {
     }
 
     for(Landmark landmark : face.getLandmarks()) {
-      encodedFace.putMap(landmarkNames[landmark.getType()], mapFromPoint(landmark.getPosition(), scaleX, scaleY, width, height, paddingLeft, paddingTop));
+      encodedFace.putMap(landmarkNames[landmark.getType()], mapFromPoint(landmark.getPosition(), scaleX, scaleY, width, height, paddingLeft, paddingTop, offsetX, offsetY));
     }
 
     WritableMap origin = Arguments.createMap();
-    Float x = face.getPosition().x;
-    Float y = face.getPosition().y;
-    if (face.getPosition().x < width / 2) {
+    float positionX = face.getPosition().x + offsetX;
+    float positionY = face.getPosition().y + offsetY;
+    Float x = positionX;
+    Float y = positionY;
+    if (positionX < width / 2) {
       x = x + paddingLeft / 2;
-    } else if (face.getPosition().x > width / 2) {
+    } else if (positionX > width / 2) {
       x = x - paddingLeft / 2;
     }
 
-    if (face.getPosition().y < height / 2) {
+    if (positionY < height / 2) {
       y = y + paddingTop / 2;
-    } else if (face.getPosition().y > height / 2) {
+    } else if (positionY > height / 2) {
       y = y - paddingTop / 2;
     }
     origin.putDouble("x", x * scaleX);
@@ -105,22 +117,29 @@ public class FaceDetectorUtils {
   }
 
   public static WritableMap mapFromPoint(PointF point, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop) {
+    return mapFromPoint(point, scaleX, scaleY, width, height, paddingLeft, paddingTop, 0, 0);
+  }
+
+  public static WritableMap mapFromPoint(PointF point, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop,
+                                         int offsetX, int offsetY) {
     WritableMap map = Arguments.createMap();
-    Float x = point.x;
-    Float y = point.y;
-    if (point.x < width / 2) {
+    float pointX = point.x + offsetX;
+    float pointY = point.y + offsetY;
+    Float x = pointX;
+    Float y = pointY;
+    if (pointX < width / 2) {
       x = (x + paddingLeft / 2);
-    } else if (point.x > width / 2) {
+    } else if (pointX > width / 2) {
       x = (x - paddingLeft / 2);
     }
 
-    if (point.y < height / 2) {
+    if (pointY < height / 2) {
       y = (y + paddingTop / 2);
-    } else if (point.y > height / 2) {
+    } else if (pointY > height / 2) {
       y = (y - paddingTop / 2);
     }
-    map.putDouble("x", point.x * scaleX);
-    map.putDouble("y", point.y * scaleY);
+    map.putDouble("x", pointX * scaleX);
+    map.putDouble("y", pointY * scaleY);
     return map;
   }
 
@@ -8,6 +8,9 @@ import com.google.android.gms.vision.face.Face;
 import com.google.android.gms.vision.face.FaceDetector;
 import org.reactnative.frame.RNFrame;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 public class RNFaceDetector {
   public static int ALL_CLASSIFICATIONS = FaceDetector.ALL_CLASSIFICATIONS;
   public static int NO_CLASSIFICATIONS = FaceDetector.NO_CLASSIFICATIONS;
@@ -16,14 +19,31 @@ public class RNFaceDetector {
   public static int ACCURATE_MODE = FaceDetector.ACCURATE_MODE;
   public static int FAST_MODE = FaceDetector.FAST_MODE;
 
-  private FaceDetector mFaceDetector = null;
-  private ImageDimensions mPreviousDimensions;
+  // Detectors built for recently seen frame dimensions and settings, least recently used first.
+  // A detector only works on frames of the dimensions it started with, so switching between
+  // orientations or cameras reuses the detectors built before instead of rebuilding them.
+  private static final int MAX_DETECTORS = 3;
+
+  private final LinkedHashMap<DetectorKey, FaceDetector> mFaceDetectors =
+      new LinkedHashMap<DetectorKey, FaceDetector>(MAX_DETECTORS + 1, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<DetectorKey, FaceDetector> eldest) {
+          if (size() > MAX_DETECTORS) {
+            eldest.getValue().release();
+            return true;
+          }
+          return false;
+        }
+      };
+  // Built with the current settings by isOperational() before any frame is known
+  private FaceDetector mSpareFaceDetector = null;
   private FaceDetector.Builder mBuilder = null;
 
   private int mClassificationType = NO_CLASSIFICATIONS;
   private int mLandmarkType = NO_LANDMARKS;
   private float mMinFaceSize = 0.15f;
   private int mMode = FAST_MODE;
+  private boolean mTrackingEnabled = true;
 
   public RNFaceDetector(Context context) {
     mBuilder = new FaceDetector.Builder(context);
@@ -31,78 +51,122 @@ public class RNFaceDetector {
     mBuilder.setMode(mMode);
     mBuilder.setLandmarkType(mLandmarkType);
     mBuilder.setClassificationType(mClassificationType);
+    mBuilder.setTrackingEnabled(mTrackingEnabled);
   }
 
   // Public API
 
-  public boolean isOperational() {
-    if (mFaceDetector == null) {
-      createFaceDetector();
+  public synchronized boolean isOperational() {
+    if (!mFaceDetectors.isEmpty()) {
+      return mFaceDetectors.values().iterator().next().isOperational();
+    }
+    if (mSpareFaceDetector == null) {
+      mSpareFaceDetector = mBuilder.build();
     }
 
-    return mFaceDetector.isOperational();
+    return mSpareFaceDetector.isOperational();
   }
 
-  public SparseArray<Face> detect(RNFrame frame) {
-    // If the frame has different dimensions, create another face detector.
-    // Otherwise we will get nasty "inconsistent image dimensions" error from detector
-    // and no face will be detected.
-    if (!frame.getDimensions().equals(mPreviousDimensions)) {
-      releaseFaceDetector();
-    }
-
-    if (mFaceDetector == null) {
-      createFaceDetector();
-      mPreviousDimensions = frame.getDimensions();
+  public synchronized SparseArray<Face> detect(RNFrame frame) {
+    // A detector fed frames of other dimensions fails with "inconsistent image dimensions"
+    // and detects no face, so every dimensions get a detector of their own.
+    DetectorKey key = new DetectorKey(frame.getDimensions(), mMode, mLandmarkType, mClassificationType, mTrackingEnabled);
+    FaceDetector faceDetector = mFaceDetectors.get(key);
+    if (faceDetector == null) {
+      if (mSpareFaceDetector != null) {
+        faceDetector = mSpareFaceDetector;
+        mSpareFaceDetector = null;
+      } else {
+        faceDetector = mBuilder.build();
+      }
+      mFaceDetectors.put(key, faceDetector);
     }
 
-    return mFaceDetector.detect(frame.getFrame());
+    return faceDetector.detect(frame.getFrame());
   }
 
-  public void setTracking(boolean trackingEnabled) {
-    release();
-    mBuilder.setTrackingEnabled(trackingEnabled);
+  public synchronized void setTracking(boolean trackingEnabled) {
+    if (trackingEnabled != mTrackingEnabled) {
+      releaseSpareFaceDetector();
+      mBuilder.setTrackingEnabled(trackingEnabled);
+      mTrackingEnabled = trackingEnabled;
+    }
   }
 
-  public void setClassificationType(int classificationType) {
+  public synchronized void setClassificationType(int classificationType) {
     if (classificationType != mClassificationType) {
-      release();
+      releaseSpareFaceDetector();
       mBuilder.setClassificationType(classificationType);
       mClassificationType = classificationType;
     }
   }
 
-  public void setLandmarkType(int landmarkType) {
+  public synchronized void setLandmarkType(int landmarkType) {
     if (landmarkType != mLandmarkType) {
-      release();
+      releaseSpareFaceDetector();
       mBuilder.setLandmarkType(landmarkType);
       mLandmarkType = landmarkType;
     }
   }
 
-  public void setMode(int mode) {
+  public synchronized void setMode(int mode) {
     if (mode != mMode) {
-      release();
+      releaseSpareFaceDetector();
       mBuilder.setMode(mode);
       mMode = mode;
     }
   }
 
-  public void release() {
-    releaseFaceDetector();
-    mPreviousDimensions = null;
+  public synchronized void release() {
+    releaseSpareFaceDetector();
+    for (FaceDetector faceDetector : mFaceDetectors.values()) {
+      faceDetector.release();
+    }
+    mFaceDetectors.clear();
   }
 
   // Lifecycle methods
 
-  private void releaseFaceDetector() {
-    if (mFaceDetector != null) {
-      mFaceDetector.release();
-      mFaceDetector = null;
+  private void releaseSpareFaceDetector() {
+    if (mSpareFaceDetector != null) {
+      mSpareFaceDetector.release();
+      mSpareFaceDetector = null;
     }
   }
 
-  private void createFaceDetector() {
-    mFaceDetector = mBuilder.build();
+  private static class DetectorKey {
+    private final ImageDimensions mDimensions;
+    private final int mMode;
+    private final int mLandmarkType;
+    private final int mClassificationType;
+    private final boolean mTrackingEnabled;
+
+    DetectorKey(ImageDimensions dimensions, int mode, int landmarkType, int classificationType, boolean trackingEnabled) {
+      mDimensions = dimensions;
+      mMode = mode;
+      mLandmarkType = landmarkType;
+      mClassificationType = classificationType;
+      mTrackingEnabled = trackingEnabled;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+      if (!(obj instanceof DetectorKey)) {
+        return false;
+      }
+      DetectorKey other = (DetectorKey) obj;
+      return mDimensions.equals(other.mDimensions) && mMode == other.mMode && mLandmarkType == other.mLandmarkType
+          && mClassificationType == other.mClassificationType && mTrackingEnabled == other.mTrackingEnabled;
+    }
+
+    @Override
+    public int hashCode() {
+      int result = mDimensions.hashCode();
+      result = 31 * result + mMode;
+      result = 31 * result + mLandmarkType;
+      result = 31 * result + mClassificationType;
+      result = 31 * result + (mTrackingEnabled ? 1 : 0);
+      return result;
+    }
   }
 }
@@ -0,0 +1,64 @@
+package org.reactnative.textrecognizer;
+
+import android.content.Context;
+import android.util.SparseArray;
+import com.google.android.gms.vision.text.TextBlock;
+import com.google.android.gms.vision.text.TextRecognizer;
+import org.reactnative.camera.utils.ImageDimensions;
+import org.reactnative.frame.RNFrame;
+
+public class RNTextRecognizer {
+
+    private TextRecognizer mTextRecognizer = null;
+    private ImageDimensions mPreviousDimensions;
+    private TextRecognizer.Builder mBuilder;
+
+    public RNTextRecognizer(Context context) {
+        mBuilder = new TextRecognizer.Builder(context);
+    }
+
+    // Public API
+
+    public synchronized boolean isOperational() {
+        if (mTextRecognizer == null) {
+            createTextRecognizer();
+        }
+
+        return mTextRecognizer.isOperational();
+    }
+
+    public synchronized SparseArray<TextBlock> detect(RNFrame frame) {
+        // If the frame has different dimensions, create another text recognizer,
+        // the same way as the face and barcode detectors do.
+        if (!frame.getDimensions().equals(mPreviousDimensions)) {
+            releaseTextRecognizer();
+        }
+
+        if (mTextRecognizer == null) {
+            createTextRecognizer();
+            mPreviousDimensions = frame.getDimensions();
+        }
+
+        return mTextRecognizer.detect(frame.getFrame());
+    }
+
+    // Synchronized with detect(), the recognizer is used from an analysis thread
+    // while the view releases it from the main thread.
+    public synchronized void release() {
+        releaseTextRecognizer();
+        mPreviousDimensions = null;
+    }
+
+    // Lifecycle methods
+
+    private void releaseTextRecognizer() {
+        if (mTextRecognizer != null) {
+            mTextRecognizer.release();
+            mTextRecognizer = null;
+        }
+    }
+
+    private void createTextRecognizer() {
+        mTextRecognizer = mBuilder.build();
+    }
+}
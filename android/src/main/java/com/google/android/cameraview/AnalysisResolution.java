@@ -0,0 +1,192 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.cameraview;
+
+import android.os.Parcel;
+import android.os.Parcelable;
+
+import java.util.SortedSet;
+
+/**
+ * Immutable policy choosing the resolution of the frames handed to the analyzers,
+ * independently of the preview size.
+ */
+public class AnalysisResolution implements Parcelable {
+
+    private static final int POLICY_FIXED = 0;
+
+    private static final int POLICY_MAX_PIXELS = 1;
+
+    private static final int POLICY_MODULE_SIZE = 2;
+
+    private final int mPolicy;
+
+    private final int mWidth;
+
+    private final int mHeight;
+
+    private final int mMaxPixels;
+
+    private final int mModules;
+
+    private final float mPixelsPerModule;
+
+    private final float mCoverage;
+
+    private AnalysisResolution(int policy, int width, int height, int maxPixels, int modules,
+                               float pixelsPerModule, float coverage) {
+        mPolicy = policy;
+        mWidth = width;
+        mHeight = height;
+        mMaxPixels = maxPixels;
+        mModules = modules;
+        mPixelsPerModule = pixelsPerModule;
+        mCoverage = coverage;
+    }
+
+    /**
+     * Analyzes frames of the given size, or of the closest size that is not smaller
+     * if the camera doesn't support it.
+     */
+    public static AnalysisResolution fixed(int width, int height) {
+        return new AnalysisResolution(POLICY_FIXED, width, height, 0, 0, 0, 0);
+    }
+
+    /**
+     * Analyzes frames of the largest size that has at most {@code maxPixels} pixels.
+     */
+    public static AnalysisResolution maxPixels(int maxPixels) {
+        return new AnalysisResolution(POLICY_MAX_PIXELS, 0, 0, maxPixels, 0, 0, 0);
+    }
+
+    /**
+     * Analyzes frames of the smallest size at which a barcode still gets enough pixels per module.
+     *
+     * @param modules         The number of modules across the barcode, quiet zone included.
+     * @param pixelsPerModule The number of pixels each module should span.
+     * @param coverage        The fraction of the shorter frame side the barcode spans, in (0, 1].
+     */
+    public static AnalysisResolution moduleSize(int modules, float pixelsPerModule, float coverage) {
+        return new AnalysisResolution(POLICY_MODULE_SIZE, 0, 0, 0, modules, pixelsPerModule, coverage);
+    }
+
+    /**
+     * @param sizes The supported sizes, smallest first.
+     * @return The size to analyze at, or {@code null} if {@code sizes} is empty.
+     */
+    public Size choose(SortedSet<Size> sizes) {
+        if (sizes.isEmpty()) {
+            return null;
+        }
+        switch (mPolicy) {
+            case POLICY_FIXED:
+                for (Size size : sizes) {
+                    if (size.getWidth() >= mWidth && size.getHeight() >= mHeight) {
+                        return size;
+                    }
+                }
+                return sizes.last();
+            case POLICY_MAX_PIXELS:
+                Size chosen = sizes.first();
+                for (Size size : sizes) {
+                    if ((long) size.getWidth() * size.getHeight() > mMaxPixels) {
+                        break;
+                    }
+                    chosen = size;
+                }
+                return chosen;
+            default:
+                float coverage = mCoverage > 0 && mCoverage <= 1 ? mCoverage : 1;
+                int required = (int) Math.ceil(mModules * mPixelsPerModule / coverage);
+                for (Size size : sizes) {
+                    if (Math.min(size.getWidth(), size.getHeight()) >= required) {
+                        return size;
+                    }
+                }
+                return sizes.last();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof AnalysisResolution)) {
+            return false;
+        }
+        AnalysisResolution other = (AnalysisResolution) o;
+        return mPolicy == other.mPolicy && mWidth == other.mWidth && mHeight == other.mHeight
+                && mMaxPixels == other.mMaxPixels && mModules == other.mModules
+                && Float.compare(mPixelsPerModule, other.mPixelsPerModule) == 0
+                && Float.compare(mCoverage, other.mCoverage) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        int result = mPolicy;
+        result = 31 * result + mWidth;
+        result = 31 * result + mHeight;
+        result = 31 * result + mMaxPixels;
+        result = 31 * result + mModules;
+        result = 31 * result + Float.floatToIntBits(mPixelsPerModule);
+        result = 31 * result + Float.floatToIntBits(mCoverage);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        switch (mPolicy) {
+            case POLICY_FIXED:
+                return "fixed " + mWidth + "x" + mHeight;
+            case POLICY_MAX_PIXELS:
+                return "max " + mMaxPixels + " pixels";
+            default:
+                return mModules + " modules at " + mPixelsPerModule + "px over " + mCoverage;
+        }
+    }
+
+    @Override
+    public int describeContents() {
+        return 0;
+    }
+
+    @Override
+    public void writeToParcel(Parcel dest, int flags) {
+        dest.writeInt(mPolicy);
+        dest.writeInt(mWidth);
+        dest.writeInt(mHeight);
+        dest.writeInt(mMaxPixels);
+        dest.writeInt(mModules);
+        dest.writeFloat(mPixelsPerModule);
+        dest.writeFloat(mCoverage);
+    }
+
+    public static final Parcelable.Creator<AnalysisResolution> CREATOR
+            = new Parcelable.Creator<AnalysisResolution>() {
+        @Override
+        public AnalysisResolution createFromParcel(Parcel source) {
+            return new AnalysisResolution(source.readInt(), source.readInt(), source.readInt(),
+                    source.readInt(), source.readInt(), source.readFloat(), source.readFloat());
+        }
+
+        @Override
+        public AnalysisResolution[] newArray(int size) {
+            return new AnalysisResolution[size];
+        }
+    };
+}
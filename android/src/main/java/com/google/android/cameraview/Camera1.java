@@ -17,6 +17,7 @@
 package com.google.android.cameraview;
 
 import android.annotation.SuppressLint;
+import android.graphics.ImageFormat;
 import android.graphics.Rect;
 import android.graphics.SurfaceTexture;
 import android.hardware.Camera;
@@ -34,6 +35,8 @@ import com.facebook.react.bridge.ReadableMap;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Properties;
 import java.util.Set;
@@ -134,9 +137,25 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
     private SurfaceTexture mPreviewTexture;
 
+    // Size of the buffers queued with addCallbackBuffer, 0 if frames are not delivered in our buffers
+    private int mPreviewBufferSize;
+
+    // Buffers of the current callback queue, the only ones given back to the camera once released.
+    // Buffers from an earlier queue go to the pool instead, so the camera never holds more than the depth
+    private final Set<byte[]> mPreviewBuffers =
+            Collections.newSetFromMap(new IdentityHashMap<byte[], Boolean>());
+
     Camera1(Callback callback, PreviewImpl preview, Handler bgHandler) {
         super(callback, preview, bgHandler);
 
+        // hand preview buffers back to the camera once every consumer is done with them
+        mFrameBufferPool.setCallback(new FrameBufferPool.Callback() {
+            @Override
+            public boolean onBufferReleased(byte[] buffer) {
+                return requeuePreviewBuffer(buffer);
+            }
+        });
+
         preview.setCallback(new PreviewImpl.Callback() {
             @Override
             public void onSurfaceChanged() {
@@ -336,7 +355,7 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
                 mIsPreviewActive = true;
                 mCamera.startPreview();
                 if (mIsScanning) {
-                    mCamera.setPreviewCallback(this);
+                    updatePreviewCallback();
                 }
             }
             catch(Exception e){
@@ -769,11 +788,13 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
                                     mCamera.startPreview();
                                     mIsPreviewActive = true;
                                     if (mIsScanning) {
-                                        mCamera.setPreviewCallback(Camera1.this);
+                                        updatePreviewCallback();
                                     }
                                 } else {
                                     mCamera.stopPreview();
                                     mIsPreviewActive = false;
+                                    mPreviewBufferSize = 0;
+                                    mPreviewBuffers.clear();
                                     mCamera.setPreviewCallback(null);
                                 }
                             }
@@ -1130,6 +1151,11 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
             mCamera.release();
             mCamera = null;
             mPictureSize = null;
+            mPreviewBufferSize = 0;
+            synchronized (this) {
+                mPreviewBuffers.clear();
+            }
+            mFrameBufferPool.clear();
             mCallback.onCameraClosed();
 
             // reset these flags
@@ -1459,10 +1485,66 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
     private void setScanningInternal(boolean isScanning) {
         mIsScanning = isScanning;
         if (isCameraOpened()) {
-            if (mIsScanning) {
-                mCamera.setPreviewCallback(this);
-            } else {
-                mCamera.setPreviewCallback(null);
+            updatePreviewCallback();
+        }
+    }
+
+    /**
+     * Installs the preview callback matching {@link #mIsScanning}. Unless the frame buffer pool
+     * is disabled, frames are delivered into pre-sized buffers fed with addCallbackBuffer so the
+     * framework doesn't allocate a new array for every frame.
+     */
+    private synchronized void updatePreviewCallback() {
+        // buffers still held by consumers are not given back to the camera anymore
+        mPreviewBuffers.clear();
+        if (!mIsScanning) {
+            mPreviewBufferSize = 0;
+            mCamera.setPreviewCallback(null);
+            return;
+        }
+        int depth = mFrameBufferPool.getDepth();
+        if (depth == 0) {
+            mPreviewBufferSize = 0;
+            mCamera.setPreviewCallback(this);
+            return;
+        }
+        Camera.Size previewSize = mCameraParameters.getPreviewSize();
+        int bufferSize = previewSize.width * previewSize.height
+                * ImageFormat.getBitsPerPixel(mCameraParameters.getPreviewFormat()) / 8;
+
+        // drops buffers queued for a previous preview size
+        mCamera.setPreviewCallbackWithBuffer(null);
+        mPreviewBufferSize = bufferSize;
+        mCamera.setPreviewCallbackWithBuffer(this);
+        for (int i = 0; i < depth; i++) {
+            byte[] buffer = mFrameBufferPool.obtain(bufferSize);
+            mPreviewBuffers.add(buffer);
+            mCamera.addCallbackBuffer(buffer);
+        }
+    }
+
+    private boolean requeuePreviewBuffer(byte[] buffer) {
+        synchronized(this){
+            if (mCamera == null || !mPreviewBuffers.contains(buffer)) {
+                return false;
+            }
+            try{
+                mCamera.addCallbackBuffer(buffer);
+                return true;
+            }
+            catch(RuntimeException e){
+                Log.e("CAMERA_1::", "addCallbackBuffer failed", e);
+                return false;
+            }
+        }
+    }
+
+    @Override
+    void setFrameBufferPoolDepth(int depth) {
+        super.setFrameBufferPoolDepth(depth);
+        synchronized(this){
+            if (mIsScanning && isCameraOpened()) {
+                updatePreviewCallback();
             }
         }
     }
@@ -1505,8 +1587,21 @@ class Camera1 extends CameraViewImpl implements MediaRecorder.OnInfoListener,
 
     @Override
     public void onPreviewFrame(byte[] data, Camera camera) {
+        if (data == null) {
+            return;
+        }
         Camera.Size previewSize = mCameraParameters.getPreviewSize();
+
+        // our own buffers are tracked so consumers can hold on to them,
+        // and go back to the camera once they are all released
+        boolean isPooled = mPreviewBufferSize > 0 && data.length == mPreviewBufferSize;
+        if (isPooled) {
+            mFrameBufferPool.adopt(data);
+        }
         mCallback.onFramePreview(data, previewSize.width, previewSize.height, mDeviceOrientation);
+        if (isPooled) {
+            mFrameBufferPool.release(data);
+        }
     }
 
     private void setUpMediaRecorder(String path, int maxDuration, int maxFileSize, boolean recordAudio, CamcorderProfile profile, int fps) {
@@ -43,7 +43,9 @@ import android.util.Log;
 import android.util.SparseIntArray;
 import android.view.Surface;
 import android.os.Handler;
+import android.os.HandlerThread;
 import android.os.Looper;
+import android.os.SystemClock;
 import android.os.Build;
 
 import com.facebook.react.bridge.ReadableMap;
@@ -90,6 +92,9 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     private static final int FOCUS_METERING_AREA_WEIGHT_DEFAULT = 1000;
 
+    // Tags the requests that target the scan image reader, so that their results count frames
+    private static final Object SCAN_REQUEST_TAG = new Object();
+
     private final CameraManager mCameraManager;
 
     private final CameraDevice.StateCallback mCameraDeviceCallback
@@ -161,6 +166,17 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     PictureCaptureCallback mCaptureCallback = new PictureCaptureCallback() {
 
+        @Override
+        public void onCaptureCompleted(@NonNull CameraCaptureSession session,
+                @NonNull CaptureRequest request, @NonNull TotalCaptureResult result) {
+            super.onCaptureCompleted(session, request, result);
+            // every completed scan request produced a frame, including those the reader
+            // coalesced into a later image and those the camera dropped
+            if (request.getTag() == SCAN_REQUEST_TAG) {
+                countFrameProduced();
+            }
+        }
+
         @Override
         public void onPrecaptureRequired() {
             mPreviewRequestBuilder.set(CaptureRequest.CONTROL_AE_PRECAPTURE_TRIGGER,
@@ -187,17 +203,50 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
         @Override
         public void onImageAvailable(ImageReader reader) {
-            try (Image image = reader.acquireNextImage()) {
+            boolean isFrame = reader.getImageFormat() != ImageFormat.JPEG;
+            Image acquired;
+            try {
+                // frames queued behind a slow callback are skipped in favor of the newest one
+                acquired = isFrame ? reader.acquireLatestImage() : reader.acquireNextImage();
+            } catch (IllegalStateException e) {
+                // the reader was closed by stop() while this callback was queued on its thread
+                return;
+            }
+            if (acquired == null) {
+                // an earlier callback already took the newest frame
+                return;
+            }
+            if (isFrame) {
+                countFrameAcquired();
+            }
+            try (Image image = acquired) {
                 Image.Plane[] planes = image.getPlanes();
                 if (planes.length > 0) {
                     ByteBuffer buffer = planes[0].getBuffer();
-                    byte[] data = new byte[buffer.remaining()];
-                    buffer.get(data);
                     if (image.getFormat() == ImageFormat.JPEG) {
+                        byte[] data = new byte[buffer.remaining()];
+                        buffer.get(data);
                         // @TODO: implement deviceOrientation
                         mCallback.onPictureTaken(data, 0);
                     } else {
-                        mCallback.onFramePreview(data, image.getWidth(), image.getHeight(), mDisplayOrientation);
+                        // preview frames come at camera rate, so recycle their buffers.
+                        // Consumers retain the buffer if they need it after this call.
+                        int width = image.getWidth();
+                        int height = image.getHeight();
+                        long copyStart = SystemClock.elapsedRealtimeNanos();
+                        byte[] data = mFrameBufferPool.acquire(Yuv420Packer.getNV21Size(width, height));
+                        if (mFrameChromaRequired && planes.length == 3) {
+                            Yuv420Packer.packNV21(buffer, planes[0].getRowStride(),
+                                    planes[1].getBuffer(), planes[2].getBuffer(),
+                                    planes[1].getRowStride(), planes[1].getPixelStride(),
+                                    width, height, data);
+                        } else {
+                            // frames keep the NV21 size, but nobody reads their chroma
+                            Yuv420Packer.packLuminance(buffer, planes[0].getRowStride(), width, height, data);
+                        }
+                        recordFrameCopy(SystemClock.elapsedRealtimeNanos() - copyStart);
+                        mCallback.onFramePreview(data, width, height, mDisplayOrientation);
+                        mFrameBufferPool.release(data);
                     }
                     image.close();
                 }
@@ -226,6 +275,16 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     private ImageReader mScanImageReader;
 
+    // Threads receiving the image reader callbacks, so that frame copies and JPEG hand-offs
+    // don't compete with the thread that created the readers
+    private HandlerThread mStillImageThread;
+
+    private Handler mStillImageHandler;
+
+    private HandlerThread mScanImageThread;
+
+    private Handler mScanImageHandler;
+
     private int mImageFormat;
 
     private MediaRecorder mMediaRecorder;
@@ -238,6 +297,8 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     private final SizeMap mPictureSizes = new SizeMap();
 
+    private final SizeMap mScanSizes = new SizeMap();
+
     private Size mPictureSize;
 
     private int mFacing;
@@ -329,14 +390,16 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
             mCamera = null;
         }
         if (mStillImageReader != null) {
-            mStillImageReader.close();
+            closeImageReader(mStillImageReader, mStillImageHandler);
             mStillImageReader = null;
         }
 
         if (mScanImageReader != null) {
-            mScanImageReader.close();
+            closeImageReader(mScanImageReader, mScanImageHandler);
             mScanImageReader = null;
         }
+        stopImageReaderThreads();
+        mFrameBufferPool.clear();
 
         if (mMediaRecorder != null) {
             mMediaRecorder.stop();
@@ -452,7 +515,8 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
             mCaptureSession = null;
         }
         if (mStillImageReader != null) {
-            mStillImageReader.close();
+            closeImageReader(mStillImageReader, mStillImageHandler);
+            mStillImageReader = null;
         }
         if (size == null) {
           if (mAspectRatio == null || mPictureSize == null) {
@@ -709,6 +773,41 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         return mPlaySoundOnCapture;
     }
 
+    @Override
+    void setAnalysisResolution(AnalysisResolution resolution) {
+        if (resolution == null ? mAnalysisResolution == null : resolution.equals(mAnalysisResolution)) {
+            return;
+        }
+        super.setAnalysisResolution(resolution);
+        restartScanImageReader();
+    }
+
+    @Override
+    void setFrameQueueSize(int size) {
+        if (size == getFrameQueueSize()) {
+            return;
+        }
+        super.setFrameQueueSize(size);
+        restartScanImageReader();
+    }
+
+    /**
+     * Recreates the scan image reader after its configuration changed, together with the
+     * capture session that feeds it.
+     */
+    private void restartScanImageReader() {
+        if (mScanImageReader == null) {
+            // picked up by start()
+            return;
+        }
+        prepareScanImageReader();
+        if (mCaptureSession != null) {
+            mCaptureSession.close();
+            mCaptureSession = null;
+            startCaptureSession();
+        }
+    }
+
     @Override
     void setScanning(boolean isScanning) {
         if (mIsScanning == isScanning) {
@@ -861,7 +960,7 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     /**
      * <p>Collects some information from {@link #mCameraCharacteristics}.</p>
-     * <p>This rewrites {@link #mPreviewSizes}, {@link #mPictureSizes},
+     * <p>This rewrites {@link #mPreviewSizes}, {@link #mPictureSizes}, {@link #mScanSizes},
      * {@link #mCameraOrientation}, and optionally, {@link #mAspectRatio}.</p>
      */
     private void collectCameraInfo() {
@@ -880,6 +979,14 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
         }
         mPictureSizes.clear();
         collectPictureSizes(mPictureSizes, map);
+        mScanSizes.clear();
+        for (android.util.Size size : map.getOutputSizes(ImageFormat.YUV_420_888)) {
+            int width = size.getWidth();
+            int height = size.getHeight();
+            if (width <= MAX_PREVIEW_WIDTH && height <= MAX_PREVIEW_HEIGHT) {
+                mScanSizes.add(new Size(width, height));
+            }
+        }
         if (mPictureSize == null) {
             mPictureSize = mPictureSizes.sizes(mAspectRatio).last();
         }
@@ -904,21 +1011,81 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
     private void prepareStillImageReader() {
         if (mStillImageReader != null) {
-            mStillImageReader.close();
+            closeImageReader(mStillImageReader, mStillImageHandler);
         }
         mStillImageReader = ImageReader.newInstance(mPictureSize.getWidth(), mPictureSize.getHeight(),
                 ImageFormat.JPEG, 1);
-        mStillImageReader.setOnImageAvailableListener(mOnImageAvailableListener, null);
+        if (mStillImageThread == null) {
+            mStillImageThread = new HandlerThread("RNCamera-Still-Image-Thread");
+            mStillImageThread.start();
+            mStillImageHandler = new Handler(mStillImageThread.getLooper());
+        }
+        mStillImageReader.setOnImageAvailableListener(mOnImageAvailableListener, mStillImageHandler);
     }
 
     private void prepareScanImageReader() {
         if (mScanImageReader != null) {
-            mScanImageReader.close();
+            closeImageReader(mScanImageReader, mScanImageHandler);
+        }
+        Size size = chooseScanSize();
+        mScanImageReader = ImageReader.newInstance(size.getWidth(), size.getHeight(),
+                ImageFormat.YUV_420_888, getFrameQueueSize());
+        if (mScanImageThread == null) {
+            mScanImageThread = new HandlerThread("RNCamera-Scan-Image-Thread");
+            mScanImageThread.start();
+            mScanImageHandler = new Handler(mScanImageThread.getLooper());
+        }
+        mScanImageReader.setOnImageAvailableListener(mOnImageAvailableListener, mScanImageHandler);
+    }
+
+    /**
+     * Closes the reader on the thread receiving its callbacks, after any callback already queued
+     * there. Closing it elsewhere would free the image planes under a callback still copying them.
+     * Callbacks queued after the close find the reader closed.
+     */
+    private static void closeImageReader(final ImageReader reader, Handler handler) {
+        if (handler == null) {
+            reader.close();
+            return;
+        }
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                reader.close();
+            }
+        });
+    }
+
+    /**
+     * Quits the image reader threads once their readers are closed. Callbacks already queued
+     * are still delivered, and find their reader closed.
+     */
+    private void stopImageReaderThreads() {
+        if (mStillImageThread != null) {
+            mStillImageThread.quitSafely();
+            mStillImageThread = null;
+            mStillImageHandler = null;
+        }
+        if (mScanImageThread != null) {
+            mScanImageThread.quitSafely();
+            mScanImageThread = null;
+            mScanImageHandler = null;
+        }
+    }
+
+    /**
+     * Chooses the size of the frames handed to the analyzers with {@link #mAnalysisResolution},
+     * among the YUV sizes of the current aspect ratio so that frame and preview coordinates
+     * keep matching.
+     */
+    private Size chooseScanSize() {
+        if (mAnalysisResolution != null && mScanSizes.ratios().contains(mAspectRatio)) {
+            Size size = mAnalysisResolution.choose(mScanSizes.sizes(mAspectRatio));
+            if (size != null) {
+                return size;
+            }
         }
-        Size largest = mPreviewSizes.sizes(mAspectRatio).last();
-        mScanImageReader = ImageReader.newInstance(largest.getWidth(), largest.getHeight(),
-                ImageFormat.YUV_420_888, 1);
-        mScanImageReader.setOnImageAvailableListener(mOnImageAvailableListener, null);
+        return mPreviewSizes.sizes(mAspectRatio).last();
     }
 
     /**
@@ -951,7 +1118,9 @@ class Camera2 extends CameraViewImpl implements MediaRecorder.OnInfoListener, Me
 
             if (mIsScanning) {
                 mPreviewRequestBuilder.addTarget(mScanImageReader.getSurface());
+                mPreviewRequestBuilder.setTag(SCAN_REQUEST_TAG);
             }
+            resetFrameCounts();
             mCamera.createCaptureSession(Arrays.asList(surface, mStillImageReader.getSurface(),
                     mScanImageReader.getSurface()), mSessionCallback, null);
         } catch (CameraAccessException e) {
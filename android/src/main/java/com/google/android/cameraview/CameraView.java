@@ -259,6 +259,10 @@ public class CameraView extends FrameLayout {
         state.playSoundOnCapture = getPlaySoundOnCapture();
         state.scanning = getScanning();
         state.pictureSize = getPictureSize();
+        state.frameBufferPoolDepth = getFrameBufferPoolDepth();
+        state.analysisResolution = getAnalysisResolution();
+        state.frameQueueSize = getFrameQueueSize();
+        state.frameChromaRequired = isFrameChromaRequired();
         return state;
     }
 
@@ -282,6 +286,10 @@ public class CameraView extends FrameLayout {
         setPlaySoundOnCapture(ss.playSoundOnCapture);
         setScanning(ss.scanning);
         setPictureSize(ss.pictureSize);
+        setFrameBufferPoolDepth(ss.frameBufferPoolDepth);
+        setAnalysisResolution(ss.analysisResolution);
+        setFrameQueueSize(ss.frameQueueSize);
+        setFrameChromaRequired(ss.frameChromaRequired);
     }
 
     public void setUsingCamera2Api(boolean useCamera2) {
@@ -608,6 +616,129 @@ public class CameraView extends FrameLayout {
 
     public boolean getScanning() { return mImpl.getScanning(); }
 
+    /**
+     * Keeps a preview frame buffer alive after
+     * {@link Callback#onFramePreview(CameraView, byte[], int, int, int)} returns.
+     * Every call must be balanced by {@link #releaseFrameBuffer(byte[])}.
+     *
+     * @param data The frame data received in the preview callback.
+     */
+    public void retainFrameBuffer(byte[] data) {
+        mImpl.retainFrameBuffer(data);
+    }
+
+    /**
+     * Hands a retained preview frame buffer back so it can be reused for upcoming frames.
+     *
+     * @param data The frame data received in the preview callback.
+     */
+    public void releaseFrameBuffer(byte[] data) {
+        mImpl.releaseFrameBuffer(data);
+    }
+
+    /**
+     * Sets how many free preview frame buffers are kept around for reuse.
+     *
+     * @param depth The number of buffers to keep, {@code 0} disables recycling.
+     */
+    public void setFrameBufferPoolDepth(int depth) {
+        mImpl.setFrameBufferPoolDepth(depth);
+    }
+
+    public int getFrameBufferPoolDepth() {
+        return mImpl.getFrameBufferPoolDepth();
+    }
+
+    /**
+     * @return The number of preview frames for which no recycled buffer was available.
+     */
+    public long getFrameBufferPoolMisses() {
+        return mImpl.getFrameBufferPoolMisses();
+    }
+
+    /**
+     * Sets how the resolution of the frames handed to
+     * {@link Callback#onFramePreview(CameraView, byte[], int, int, int)} is chosen.
+     * Only the Camera2 implementation analyzes frames apart from the preview, Camera1 always
+     * delivers preview sized frames.
+     *
+     * @param resolution The policy, or {@code null} for the largest preview size.
+     */
+    public void setAnalysisResolution(AnalysisResolution resolution) {
+        mImpl.setAnalysisResolution(resolution);
+    }
+
+    public AnalysisResolution getAnalysisResolution() {
+        return mImpl.getAnalysisResolution();
+    }
+
+    /**
+     * Sets how many analysis frames the Camera2 implementation queues before the camera has to
+     * wait for them. When frames pile up, only the newest one is acquired and the others are
+     * skipped. Camera1 queues {@link #setFrameBufferPoolDepth(int)} frames instead.
+     *
+     * @param size The queue size, at least {@code 1}.
+     */
+    public void setFrameQueueSize(int size) {
+        mImpl.setFrameQueueSize(size);
+    }
+
+    public int getFrameQueueSize() {
+        return mImpl.getFrameQueueSize();
+    }
+
+    /**
+     * @return The number of analysis frames the camera produced since the capture session
+     * started, one per completed capture request. Only counted by the Camera2 implementation.
+     */
+    public long getFramesProduced() {
+        return mImpl.getFramesProduced();
+    }
+
+    /**
+     * @return The number of produced analysis frames that were acquired and delivered, the
+     * others were skipped in favor of newer frames or dropped by the camera.
+     */
+    public long getFramesAcquired() {
+        return mImpl.getFramesAcquired();
+    }
+
+    /**
+     * Tells whether the consumers of
+     * {@link Callback#onFramePreview(CameraView, byte[], int, int, int)} read the chroma of the
+     * NV21 frames. When they only need luminance, the Camera2 implementation skips packing the
+     * chroma planes and leaves the second part of the frames undefined.
+     */
+    public void setFrameChromaRequired(boolean required) {
+        mImpl.setFrameChromaRequired(required);
+    }
+
+    public boolean isFrameChromaRequired() {
+        return mImpl.isFrameChromaRequired();
+    }
+
+    /**
+     * @return The number of preview frames copied out of camera owned memory. Camera1 fills
+     * the frame buffers directly, so this stays {@code 0} with it.
+     */
+    public long getFrameCopyCount() {
+        return mImpl.getFrameCopyCount();
+    }
+
+    /**
+     * @return The total time spent copying preview frames, in nanoseconds.
+     */
+    public long getFrameCopyNanos() {
+        return mImpl.getFrameCopyNanos();
+    }
+
+    /**
+     * @return The longest time spent copying a single preview frame, in nanoseconds.
+     */
+    public long getMaxFrameCopyNanos() {
+        return mImpl.getMaxFrameCopyNanos();
+    }
+
     /**
      * Take a picture. The result will be returned to
      * {@link Callback#onPictureTaken(CameraView, byte[], int)}.
@@ -769,6 +900,14 @@ public class CameraView extends FrameLayout {
 
         Size pictureSize;
 
+        int frameBufferPoolDepth;
+
+        AnalysisResolution analysisResolution;
+
+        int frameQueueSize;
+
+        boolean frameChromaRequired;
+
         @SuppressWarnings("WrongConstant")
         public SavedState(Parcel source, ClassLoader loader) {
             super(source);
@@ -784,6 +923,10 @@ public class CameraView extends FrameLayout {
             playSoundOnCapture = source.readByte() != 0;
             scanning = source.readByte() != 0;
             pictureSize = source.readParcelable(loader);
+            frameBufferPoolDepth = source.readInt();
+            analysisResolution = source.readParcelable(loader);
+            frameQueueSize = source.readInt();
+            frameChromaRequired = source.readByte() != 0;
         }
 
         public SavedState(Parcelable superState) {
@@ -805,6 +948,10 @@ public class CameraView extends FrameLayout {
             out.writeByte((byte) (playSoundOnCapture ? 1 : 0));
             out.writeByte((byte) (scanning ? 1 : 0));
             out.writeParcelable(pictureSize, flags);
+            out.writeInt(frameBufferPoolDepth);
+            out.writeParcelable(analysisResolution, flags);
+            out.writeInt(frameQueueSize);
+            out.writeByte((byte) (frameChromaRequired ? 1 : 0));
         }
 
         public static final Creator<SavedState> CREATOR
@@ -42,6 +42,35 @@ abstract class CameraViewImpl {
     // by itself.
     protected final Handler mBgHandler;
 
+    // Recycled buffers for preview frames handed to Callback#onFramePreview.
+    protected final FrameBufferPool mFrameBufferPool = new FrameBufferPool(FrameBufferPool.DEFAULT_DEPTH);
+
+    // Resolution of the frames handed to the analyzers, null for the largest preview size.
+    protected AnalysisResolution mAnalysisResolution;
+
+    // Whether preview frames need their chroma, implementations that pack frames themselves
+    // may skip it otherwise.
+    protected volatile boolean mFrameChromaRequired = true;
+
+    static final int DEFAULT_FRAME_QUEUE_SIZE = 2;
+
+    // How many preview frames the implementation may hold before the camera has to wait.
+    private int mFrameQueueSize = DEFAULT_FRAME_QUEUE_SIZE;
+
+    // Frames the camera produced for analysis in the current session, counted from the
+    // completed capture requests, and those acquired. The others were skipped in favor of
+    // newer frames or dropped before they reached the image reader.
+    private long mFramesProduced;
+
+    private long mFramesAcquired;
+
+    // Time spent copying preview frames out of the camera, for implementations that copy them.
+    private long mFrameCopyCount;
+
+    private long mFrameCopyNanos;
+
+    private long mMaxFrameCopyNanos;
+
     CameraViewImpl(Callback callback, PreviewImpl preview, Handler bgHandler) {
         mCallback = callback;
         mPreview = preview;
@@ -52,6 +81,91 @@ abstract class CameraViewImpl {
         return mPreview.getView();
     }
 
+    void retainFrameBuffer(byte[] data) {
+        mFrameBufferPool.retain(data);
+    }
+
+    void releaseFrameBuffer(byte[] data) {
+        mFrameBufferPool.release(data);
+    }
+
+    void setFrameBufferPoolDepth(int depth) {
+        mFrameBufferPool.setDepth(depth);
+    }
+
+    int getFrameBufferPoolDepth() {
+        return mFrameBufferPool.getDepth();
+    }
+
+    long getFrameBufferPoolMisses() {
+        return mFrameBufferPool.getMissCount();
+    }
+
+    void setAnalysisResolution(AnalysisResolution resolution) {
+        mAnalysisResolution = resolution;
+    }
+
+    AnalysisResolution getAnalysisResolution() {
+        return mAnalysisResolution;
+    }
+
+    void setFrameChromaRequired(boolean required) {
+        mFrameChromaRequired = required;
+    }
+
+    boolean isFrameChromaRequired() {
+        return mFrameChromaRequired;
+    }
+
+    void setFrameQueueSize(int size) {
+        mFrameQueueSize = Math.max(1, size);
+    }
+
+    int getFrameQueueSize() {
+        return mFrameQueueSize;
+    }
+
+    synchronized void countFrameProduced() {
+        mFramesProduced++;
+    }
+
+    synchronized void countFrameAcquired() {
+        mFramesAcquired++;
+    }
+
+    synchronized void resetFrameCounts() {
+        mFramesProduced = 0;
+        mFramesAcquired = 0;
+    }
+
+    synchronized long getFramesProduced() {
+        return mFramesProduced;
+    }
+
+    synchronized long getFramesAcquired() {
+        return mFramesAcquired;
+    }
+
+    synchronized void recordFrameCopy(long nanos) {
+        mFrameCopyCount++;
+        mFrameCopyNanos += nanos;
+        if (nanos > mMaxFrameCopyNanos) {
+            mMaxFrameCopyNanos = nanos;
+        }
+    }
+
+    synchronized long getFrameCopyCount() {
+        return mFrameCopyCount;
+    }
+
+    synchronized long getFrameCopyNanos() {
+        return mFrameCopyNanos;
+    }
+
+    synchronized long getMaxFrameCopyNanos() {
+        return mMaxFrameCopyNanos;
+    }
+
     /**
      * @return {@code true} if the implementation was able to start the camera session.
      */
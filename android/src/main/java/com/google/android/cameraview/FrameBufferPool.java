@@ -0,0 +1,179 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.cameraview;
+
+import android.util.SparseArray;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+
+/**
+ * A pool of preview frame buffers grouped by their byte size.
+ *
+ * <p>Buffers handed out by {@link #acquire(int)} are reference counted. The producer owns the
+ * first reference, every consumer that keeps the buffer beyond the frame callback calls
+ * {@link #retain(byte[])}, and the buffer goes back to the pool once the last reference is
+ * dropped with {@link #release(byte[])}.</p>
+ */
+class FrameBufferPool {
+
+    static final int DEFAULT_DEPTH = 3;
+
+    /**
+     * Notified when the last reference to a buffer is dropped.
+     */
+    interface Callback {
+
+        /**
+         * @param buffer The buffer nobody holds anymore.
+         * @return {@code true} if the buffer was taken over, {@code false} to keep it in the pool.
+         */
+        boolean onBufferReleased(byte[] buffer);
+    }
+
+    private final SparseArray<ArrayDeque<byte[]>> mFreeBuffers = new SparseArray<>();
+
+    private final IdentityHashMap<byte[], Integer> mReferences = new IdentityHashMap<>();
+
+    private int mDepth;
+
+    private long mMissCount;
+
+    private volatile Callback mCallback;
+
+    FrameBufferPool(int depth) {
+        mDepth = depth;
+    }
+
+    void setCallback(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * Returns a buffer of exactly {@code size} bytes, allocating a new one if none is free.
+     *
+     * @param size The byte size of the frame.
+     * @return A buffer holding a single reference for the caller.
+     */
+    synchronized byte[] acquire(int size) {
+        byte[] buffer = obtain(size);
+        mReferences.put(buffer, 1);
+        return buffer;
+    }
+
+    /**
+     * Same as {@link #acquire(int)}, but the buffer is not tracked until it is
+     * passed to {@link #adopt(byte[])}. Used for buffers that are filled asynchronously.
+     */
+    synchronized byte[] obtain(int size) {
+        ArrayDeque<byte[]> buffers = mFreeBuffers.get(size);
+        if (buffers == null) {
+            // Frame size changed; buffers of any other size will not be asked for again
+            mFreeBuffers.clear();
+            buffers = new ArrayDeque<>(mDepth);
+            mFreeBuffers.put(size, buffers);
+        }
+        byte[] buffer = buffers.poll();
+        if (buffer == null) {
+            mMissCount++;
+            buffer = new byte[size];
+        }
+        return buffer;
+    }
+
+    /**
+     * Starts tracking a buffer obtained with {@link #obtain(int)}, holding a single reference
+     * for the caller.
+     */
+    synchronized void adopt(byte[] buffer) {
+        mReferences.put(buffer, 1);
+    }
+
+    /**
+     * Adds a reference to a buffer obtained from {@link #acquire(int)}.
+     *
+     * @return {@code false} if the buffer is not owned by this pool.
+     */
+    synchronized boolean retain(byte[] buffer) {
+        Integer references = mReferences.get(buffer);
+        if (references == null) {
+            return false;
+        }
+        mReferences.put(buffer, references + 1);
+        return true;
+    }
+
+    /**
+     * Drops a reference to a buffer, recycling it once nobody holds it anymore.
+     * Buffers not owned by this pool are ignored.
+     */
+    void release(byte[] buffer) {
+        synchronized (this) {
+            Integer references = mReferences.get(buffer);
+            if (references == null) {
+                return;
+            }
+            if (references > 1) {
+                mReferences.put(buffer, references - 1);
+                return;
+            }
+            mReferences.remove(buffer);
+        }
+        // the callback may hand the buffer to the camera, don't hold the pool lock meanwhile
+        Callback callback = mCallback;
+        if (callback != null && callback.onBufferReleased(buffer)) {
+            return;
+        }
+        recycle(buffer);
+    }
+
+    private synchronized void recycle(byte[] buffer) {
+        ArrayDeque<byte[]> buffers = mFreeBuffers.get(buffer.length);
+        if (buffers != null && buffers.size() < mDepth) {
+            buffers.offer(buffer);
+        }
+    }
+
+    synchronized void setDepth(int depth) {
+        mDepth = Math.max(depth, 0);
+        for (int i = 0; i < mFreeBuffers.size(); i++) {
+            ArrayDeque<byte[]> buffers = mFreeBuffers.valueAt(i);
+            while (buffers.size() > mDepth) {
+                buffers.poll();
+            }
+        }
+    }
+
+    synchronized int getDepth() {
+        return mDepth;
+    }
+
+    /**
+     * @return The number of times {@link #acquire(int)} had to allocate a new buffer.
+     */
+    synchronized long getMissCount() {
+        return mMissCount;
+    }
+
+    /**
+     * Drops all free buffers. Buffers still referenced are recycled as usual when released.
+     */
+    synchronized void clear() {
+        mFreeBuffers.clear();
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.cameraview;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Packs the planes of a {@code YUV_420_888} image into a contiguous NV21 frame, honoring the
+ * row and pixel strides of every plane.
+ *
+ * <p>Only plain {@link ByteBuffer}s are involved, so the packing runs on a plain JVM as well.
+ * The plane buffers are only read, their position is left untouched.</p>
+ */
+class Yuv420Packer {
+
+    // Chroma rows compared to tell the layout of interleaved planes
+    private static final int PROBED_ROWS = 8;
+
+    // Row buffers for the generic chroma path, kept per thread since every image reader
+    // delivers on its own thread
+    private static final ThreadLocal<byte[][]> sChromaRows = new ThreadLocal<byte[][]>() {
+        @Override
+        protected byte[][] initialValue() {
+            return new byte[2][0];
+        }
+    };
+
+    /**
+     * @return The byte size of a {@code width} by {@code height} NV21 frame.
+     */
+    static int getNV21Size(int width, int height) {
+        return width * height + 2 * ((width + 1) / 2) * ((height + 1) / 2);
+    }
+
+    /**
+     * Copies the luminance plane into the first {@code width * height} bytes of {@code out}.
+     *
+     * @param y         The Y plane, whose pixel stride is always 1.
+     * @param rowStride The row stride of the Y plane.
+     */
+    static void packLuminance(ByteBuffer y, int rowStride, int width, int height, byte[] out) {
+        ByteBuffer src = y.duplicate();
+        if (rowStride == width) {
+            src.position(0);
+            src.get(out, 0, width * height);
+            return;
+        }
+        for (int row = 0; row < height; row++) {
+            src.position(row * rowStride);
+            src.get(out, row * width, width);
+        }
+    }
+
+    /**
+     * Packs the three planes into {@code out} as NV21: the full Y plane followed by
+     * interleaved V and U samples.
+     *
+     * @param out At least {@link #getNV21Size(int, int)} bytes.
+     */
+    static void packNV21(ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v,
+                         int uvRowStride, int uvPixelStride, int width, int height, byte[] out) {
+        packLuminance(y, yRowStride, width, height, out);
+        int chromaWidth = (width + 1) / 2;
+        int chromaHeight = (height + 1) / 2;
+        int offset = width * height;
+        if (uvPixelStride == 2 && isInterleavedVU(u, v, uvRowStride, chromaWidth, chromaHeight)) {
+            packInterleavedVU(u, v, uvRowStride, chromaWidth, chromaHeight, out, offset);
+        } else {
+            packChroma(u, v, uvRowStride, uvPixelStride, chromaWidth, chromaHeight, out, offset);
+        }
+    }
+
+    /**
+     * Fast path for the common layout where the V plane is the VU interleaved chroma of NV21
+     * and the U plane starts one byte into it. Every chroma row is then a single bulk copy.
+     */
+    private static void packInterleavedVU(ByteBuffer u, ByteBuffer v, int rowStride,
+                                          int chromaWidth, int chromaHeight, byte[] out, int offset) {
+        ByteBuffer src = v.duplicate();
+        int rowLength = 2 * chromaWidth;
+        // the V plane ends on the last V sample, the U sample after it only belongs to the U plane
+        int available = src.limit();
+        for (int row = 0; row < chromaHeight; row++) {
+            int start = row * rowStride;
+            int length = Math.min(rowLength, available - start);
+            src.position(start);
+            src.get(out, offset, length);
+            if (length < rowLength) {
+                out[offset + rowLength - 1] = u.get(start + rowLength - 2);
+            }
+            offset += rowLength;
+        }
+    }
+
+    private static void packChroma(ByteBuffer u, ByteBuffer v, int rowStride, int pixelStride,
+                                   int chromaWidth, int chromaHeight, byte[] out, int offset) {
+        ByteBuffer uSrc = u.duplicate();
+        ByteBuffer vSrc = v.duplicate();
+        // the last row may end right after its last sample
+        int rowLength = (chromaWidth - 1) * pixelStride + 1;
+        byte[][] rows = sChromaRows.get();
+        if (rows[0].length < rowLength) {
+            rows[0] = new byte[rowLength];
+            rows[1] = new byte[rowLength];
+        }
+        byte[] uRow = rows[0];
+        byte[] vRow = rows[1];
+        for (int row = 0; row < chromaHeight; row++) {
+            uSrc.position(row * rowStride);
+            uSrc.get(uRow, 0, rowLength);
+            vSrc.position(row * rowStride);
+            vSrc.get(vRow, 0, rowLength);
+            for (int x = 0, in = 0; x < chromaWidth; x++, in += pixelStride) {
+                out[offset++] = vRow[in];
+                out[offset++] = uRow[in];
+            }
+        }
+    }
+
+    /**
+     * Tells whether the U plane starts one byte into the V plane, by comparing the bytes of a
+     * few rows spread over the planes with the V plane one byte further. The planes are only read.
+     *
+     * <p>Planes laid out the other way round only pass when neighboring samples of the probed
+     * rows are equal, as in frames of a single color, which the fast path packs right anyway.</p>
+     */
+    private static boolean isInterleavedVU(ByteBuffer u, ByteBuffer v, int rowStride,
+                                           int chromaWidth, int chromaHeight) {
+        // up to the last V sample of the row, the U sample after it may be past the end of V
+        int length = 2 * chromaWidth - 2;
+        if (length == 0) {
+            return false;
+        }
+        ByteBuffer uSrc = u.duplicate();
+        ByteBuffer vSrc = v.duplicate();
+        byte[][] rows = sChromaRows.get();
+        if (rows[0].length < length) {
+            rows[0] = new byte[length];
+            rows[1] = new byte[length];
+        }
+        byte[] uRow = rows[0];
+        byte[] vRow = rows[1];
+        for (int probe = 0; probe < PROBED_ROWS; probe++) {
+            // the first and last rows and evenly spaced ones in between, small planes repeat some
+            int row = probe * (chromaHeight - 1) / (PROBED_ROWS - 1);
+            int start = row * rowStride;
+            if (start + length > uSrc.limit() || start + 1 + length > vSrc.limit()) {
+                return false;
+            }
+            uSrc.position(start);
+            uSrc.get(uRow, 0, length);
+            vSrc.position(start + 1);
+            vSrc.get(vRow, 0, length);
+            for (int i = 0; i < length; i++) {
+                if (uRow[i] != vRow[i]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
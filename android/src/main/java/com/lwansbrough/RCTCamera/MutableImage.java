@@ -2,9 +2,12 @@ package com.lwansbrough.RCTCamera;
 
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.RectF;
 import androidx.exifinterface.media.ExifInterface;
 import android.util.Base64;
+import android.util.Base64OutputStream;
 import android.util.Log;
 
 import com.drew.imaging.ImageMetadataReader;
@@ -18,31 +21,39 @@ import com.drew.metadata.exif.ExifSubIFDDirectory;
 import com.facebook.react.bridge.ReadableMap;
 
 import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 public class MutableImage {
     private static final String TAG = "RNCamera";
 
     private final byte[] originalImageData;
     private Bitmap currentRepresentation;
+    // mutations not drawn yet, mapping currentRepresentation onto an image of width by height
+    private final Matrix pendingTransform = new Matrix();
+    private int width;
+    private int height;
     private Metadata originalImageMetaData;
     private boolean hasBeenReoriented = false;
 
     public MutableImage(byte[] originalImageData) {
         this.originalImageData = originalImageData;
         this.currentRepresentation = toBitmap(originalImageData);
+        this.width = currentRepresentation.getWidth();
+        this.height = currentRepresentation.getHeight();
     }
 
     public int getWidth() {
-        return this.currentRepresentation.getWidth();
+        return this.width;
     }
 
     public int getHeight() {
-        return this.currentRepresentation.getHeight();
+        return this.height;
     }
 
     public void mirrorImage() throws ImageMutationFailedException {
@@ -50,20 +61,7 @@ public class MutableImage {
 
         m.preScale(-1, 1);
 
-        Bitmap bitmap = Bitmap.createBitmap(
-                currentRepresentation,
-                0,
-                0,
-                getWidth(),
-                getHeight(),
-                m,
-                false
-        );
-
-        if (bitmap == null)
-            throw new ImageMutationFailedException("failed to mirror");
-
-        this.currentRepresentation = bitmap;
+        transform(m);
     }
 
     public void fixOrientation() throws ImageMutationFailedException {
@@ -96,12 +94,14 @@ public class MutableImage {
             targetPictureHeight = pictureHeight;
             targetPictureWidth = (int) (pictureHeight * previewRatio);
         }
-        this.currentRepresentation = Bitmap.createBitmap(
-                this.currentRepresentation,
-                (pictureWidth - targetPictureWidth) / 2,
-                (pictureHeight - targetPictureHeight) / 2,
-                targetPictureWidth,
-                targetPictureHeight);
+        if (targetPictureWidth <= 0 || targetPictureHeight <= 0)
+            throw new IllegalArgumentException("crop leaves an empty image");
+
+        pendingTransform.postTranslate(
+                -((pictureWidth - targetPictureWidth) / 2),
+                -((pictureHeight - targetPictureHeight) / 2));
+        this.width = targetPictureWidth;
+        this.height = targetPictureHeight;
     }
 
     //see http://www.impulseadventure.com/photo/exif-orientation.html
@@ -138,21 +138,41 @@ public class MutableImage {
                 break;
         }
 
-        Bitmap transformedBitmap = Bitmap.createBitmap(
-                currentRepresentation,
-                0,
-                0,
-                getWidth(),
-                getHeight(),
-                bitmapMatrix,
-                false
-        );
+        transform(bitmapMatrix);
+        this.hasBeenReoriented = true;
+    }
 
-        if (transformedBitmap == null)
-            throw new ImageMutationFailedException("failed to rotate");
+    // Mutations only add up in pendingTransform, the bitmap is drawn once when the image is encoded.
+    // Like Bitmap.createBitmap, the transformed image is moved back to the origin.
+    private void transform(Matrix m) {
+        RectF bounds = new RectF(0, 0, width, height);
+        m.mapRect(bounds);
+        pendingTransform.postConcat(m);
+        pendingTransform.postTranslate(-bounds.left, -bounds.top);
+        this.width = Math.round(bounds.width());
+        this.height = Math.round(bounds.height());
+    }
+
+    private Bitmap toTransformedBitmap() throws ImageMutationFailedException {
+        if (pendingTransform.isIdentity()
+                && width == currentRepresentation.getWidth() && height == currentRepresentation.getHeight())
+            return currentRepresentation;
 
+        Bitmap.Config config = currentRepresentation.getConfig() != null
+                ? currentRepresentation.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap transformedBitmap;
+        try {
+            transformedBitmap = Bitmap.createBitmap(width, height, config);
+        } catch (OutOfMemoryError e) {
+            throw new ImageMutationFailedException("failed to transform", e);
+        }
+        // only quarter turns, flips and whole pixel offsets, so no filtering is needed
+        new Canvas(transformedBitmap).drawBitmap(currentRepresentation, pendingTransform, null);
+
+        currentRepresentation.recycle();
         this.currentRepresentation = transformedBitmap;
-        this.hasBeenReoriented = true;
+        pendingTransform.reset();
+        return transformedBitmap;
     }
 
     private static Bitmap toBitmap(byte[] data) {
@@ -166,14 +186,32 @@ public class MutableImage {
         }
     }
 
-    public String toBase64(int jpegQualityPercent) {
-        return Base64.encodeToString(toJpeg(currentRepresentation, jpegQualityPercent), Base64.NO_WRAP);
+    public String toBase64(int jpegQualityPercent) throws ImageMutationFailedException {
+        // encoded while compressing, so the jpeg never sits in memory next to its encoding
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        Base64OutputStream base64Stream = new Base64OutputStream(outputStream, Base64.NO_WRAP);
+        try {
+            writeJpeg(toTransformedBitmap(), jpegQualityPercent, base64Stream);
+            base64Stream.close();
+            return outputStream.toString("US-ASCII");
+        } catch (IOException e) {
+            throw new ImageMutationFailedException("failed to encode", e);
+        }
     }
 
     public void writeDataToFile(File file, ReadableMap options, int jpegQualityPercent) throws IOException {
-        FileOutputStream fos = new FileOutputStream(file);
-        fos.write(toJpeg(currentRepresentation, jpegQualityPercent));
-        fos.close();
+        Bitmap bitmap;
+        try {
+            bitmap = toTransformedBitmap();
+        } catch (ImageMutationFailedException e) {
+            throw new IOException("failed to transform image", e);
+        }
+        OutputStream fos = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            writeJpeg(bitmap, jpegQualityPercent, fos);
+        } finally {
+            fos.close();
+        }
 
         try {
             ExifInterface exif = new ExifInterface(file.getAbsolutePath());
@@ -263,19 +301,9 @@ public class MutableImage {
         return originalImageMetaData;
     }
 
-    private static byte[] toJpeg(Bitmap bitmap, int quality) throws OutOfMemoryError {
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        bitmap.compress(Bitmap.CompressFormat.JPEG, quality, outputStream);
-
-        try {
-            return outputStream.toByteArray();
-        } finally {
-            try {
-                outputStream.close();
-            } catch (IOException e) {
-                Log.e(TAG, "problem compressing jpeg", e);
-            }
-        }
+    private static void writeJpeg(Bitmap bitmap, int quality, OutputStream outputStream) throws IOException {
+        if (!bitmap.compress(Bitmap.CompressFormat.JPEG, quality, outputStream))
+            throw new IOException("problem compressing jpeg");
     }
 
     public static class ImageMutationFailedException extends Exception {
@@ -634,7 +634,13 @@ public class RCTCameraModule extends ReactContextBaseJavaModule
 
         switch (options.getInt("target")) {
             case RCT_CAMERA_CAPTURE_TARGET_MEMORY:
-                String encoded = mutableImage.toBase64(jpegQualityPercent);
+                String encoded;
+                try {
+                    encoded = mutableImage.toBase64(jpegQualityPercent);
+                } catch (MutableImage.ImageMutationFailedException e) {
+                    promise.reject("Error transforming image", e);
+                    return;
+                }
                 WritableMap response = new WritableNativeMap();
                 response.putString("data", encoded);
                 response.putInt("width", imgWidth);
@@ -492,4 +492,42 @@ public class CameraModule extends ReactContextBaseJavaModule {
           }
       });
   }
+
+  @ReactMethod
+  public void getFrameAnalysisStats(final int viewTag, final Promise promise) {
+      final ReactApplicationContext context = getReactApplicationContext();
+      UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+      uiManager.addUIBlock(new UIBlock() {
+          @Override
+          public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+              final RNCameraView cameraView;
+
+              try {
+                  cameraView = (RNCameraView) nativeViewHierarchyManager.resolveView(viewTag);
+                  promise.resolve(cameraView.getFrameAnalysisStats());
+              } catch (Exception e) {
+                  promise.reject("E_CAMERA_BAD_VIEWTAG", "getFrameAnalysisStats: Expected a Camera component");
+              }
+          }
+      });
+  }
+
+  @ReactMethod
+  public void getFrameStreamStats(final int viewTag, final Promise promise) {
+      final ReactApplicationContext context = getReactApplicationContext();
+      UIManagerModule uiManager = context.getNativeModule(UIManagerModule.class);
+      uiManager.addUIBlock(new UIBlock() {
+          @Override
+          public void execute(NativeViewHierarchyManager nativeViewHierarchyManager) {
+              final RNCameraView cameraView;
+
+              try {
+                  cameraView = (RNCameraView) nativeViewHierarchyManager.resolveView(viewTag);
+                  promise.resolve(cameraView.getFrameStreamStats());
+              } catch (Exception e) {
+                  promise.reject("E_CAMERA_BAD_VIEWTAG", "getFrameStreamStats: Expected a Camera component");
+              }
+          }
+      });
+  }
 }
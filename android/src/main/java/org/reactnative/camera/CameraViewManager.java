@@ -3,13 +3,19 @@ package org.reactnative.camera;
 import androidx.annotation.Nullable;
 import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.ReadableMapKeySetIterator;
+import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.common.MapBuilder;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.facebook.react.uimanager.ViewGroupManager;
 import com.facebook.react.uimanager.annotations.ReactProp;
+import com.google.android.cameraview.AnalysisResolution;
 import com.google.android.cameraview.AspectRatio;
 import com.google.android.cameraview.Size;
 
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
+import org.reactnative.camera.utils.MotionGate;
+
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
@@ -162,6 +168,91 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
     view.setShouldScanBarCodes(barCodeScannerEnabled);
   }
 
+  @ReactProp(name = "scanMultipleBarCodes")
+  public void setScanMultipleBarCodes(RNCameraView view, boolean scanMultipleBarCodes) {
+    view.setScanMultipleBarCodes(scanMultipleBarCodes);
+  }
+
+  @ReactProp(name = "frameBufferPoolSize", defaultInt = 3)
+  public void setFrameBufferPoolSize(RNCameraView view, int frameBufferPoolSize) {
+    view.setFrameBufferPoolDepth(frameBufferPoolSize);
+  }
+
+  @ReactProp(name = "frameQueueSize", defaultInt = 2)
+  public void setFrameQueueSize(RNCameraView view, int frameQueueSize) {
+    view.setFrameQueueSize(frameQueueSize);
+  }
+
+  @ReactProp(name = "analysisResolution")
+  public void setAnalysisResolution(RNCameraView view, ReadableMap resolution) {
+    if (resolution == null) {
+      view.setAnalysisResolution(null);
+    } else if (resolution.hasKey("maxPixels")) {
+      view.setAnalysisResolution(AnalysisResolution.maxPixels(resolution.getInt("maxPixels")));
+    } else if (resolution.hasKey("barCodeModules")) {
+      float pixelsPerModule = resolution.hasKey("pixelsPerModule") ? (float) resolution.getDouble("pixelsPerModule") : 3;
+      float coverage = resolution.hasKey("barCodeCoverage") ? (float) resolution.getDouble("barCodeCoverage") : 0.5f;
+      view.setAnalysisResolution(AnalysisResolution.moduleSize(resolution.getInt("barCodeModules"), pixelsPerModule, coverage));
+    } else if (resolution.hasKey("width") && resolution.hasKey("height")) {
+      view.setAnalysisResolution(AnalysisResolution.fixed(resolution.getInt("width"), resolution.getInt("height")));
+    } else {
+      view.setAnalysisResolution(null);
+    }
+  }
+
+  @ReactProp(name = "analysisLanes")
+  public void setAnalysisLanes(RNCameraView view, ReadableMap lanes) {
+    // lanes left out of the map, or the whole map, go back to their defaults
+    view.resetAnalysisLanes();
+    if (lanes == null) {
+      return;
+    }
+    ReadableMapKeySetIterator iterator = lanes.keySetIterator();
+    while (iterator.hasNextKey()) {
+      String name = iterator.nextKey();
+      int lane = FrameAnalysisScheduler.getLane(name);
+      if (lane < 0 || lanes.getType(name) != ReadableType.Map) {
+        continue;
+      }
+      ReadableMap options = lanes.getMap(name);
+      // analyzer lanes keep their single thread
+      if (lane == FrameAnalysisScheduler.LANE_PICTURE && options.hasKey("threads")) {
+        view.setPictureThreadCount(options.getInt("threads"));
+      }
+      if (options.hasKey("priority")) {
+        view.setAnalysisLanePriority(lane, options.getInt("priority"));
+      }
+    }
+  }
+
+  @ReactProp(name = "analysisRates")
+  public void setAnalysisRates(RNCameraView view, ReadableMap rates) {
+    // analyzers left out of the map, or the whole map, go back to no limit
+    view.resetAnalysisRates();
+    if (rates == null) {
+      return;
+    }
+    ReadableMapKeySetIterator iterator = rates.keySetIterator();
+    while (iterator.hasNextKey()) {
+      String name = iterator.nextKey();
+      int lane = FrameAnalysisScheduler.getLane(name);
+      if (lane < 0 || rates.getType(name) != ReadableType.Number) {
+        continue;
+      }
+      view.setAnalysisRate(lane, (float) rates.getDouble(name));
+    }
+  }
+
+  @ReactProp(name = "motionGate")
+  public void setMotionGate(RNCameraView view, boolean motionGate) {
+    view.setMotionGateEnabled(motionGate);
+  }
+
+  @ReactProp(name = "motionThreshold", defaultFloat = MotionGate.DEFAULT_THRESHOLD)
+  public void setMotionThreshold(RNCameraView view, float motionThreshold) {
+    view.setMotionThreshold(motionThreshold);
+  }
+
   @ReactProp(name = "useCamera2Api")
   public void setUseCamera2Api(RNCameraView view, boolean useCamera2Api) {
     view.setUsingCamera2Api(useCamera2Api);
@@ -237,5 +328,10 @@ public class CameraViewManager extends ViewGroupManager<RNCameraView> {
       view.setCameraViewDimensions(cameraViewWidth, cameraViewHeight);
     }
   }
+
+  @ReactProp(name = "cropToRectOfInterest")
+  public void setCropToRectOfInterest(RNCameraView view, boolean cropToRectOfInterest) {
+    view.setCropToRectOfInterest(cropToRectOfInterest);
+  }
   /**---limit scan area addition---**/
 }
@@ -10,6 +10,7 @@ import android.graphics.ImageFormat;
 import android.graphics.Rect;
 import android.graphics.YuvImage;
 import android.media.CamcorderProfile;
+import android.os.AsyncTask;
 import android.os.Build;
 import androidx.core.content.ContextCompat;
 
@@ -18,7 +19,6 @@ import android.view.GestureDetector;
 import android.view.MotionEvent;
 import android.view.ScaleGestureDetector;
 import android.view.View;
-import android.os.AsyncTask;
 import com.facebook.react.bridge.*;
 import com.facebook.react.uimanager.ThemedReactContext;
 import com.google.android.cameraview.CameraView;
@@ -28,8 +28,16 @@ import com.google.zxing.MultiFormatReader;
 import com.google.zxing.Result;
 import org.reactnative.barcodedetector.RNBarcodeDetector;
 import org.reactnative.camera.tasks.*;
+import org.reactnative.camera.utils.AnalysisFrame;
+import org.reactnative.camera.utils.DirectBufferPool;
+import org.reactnative.camera.utils.BarCodeDecodeStrategy;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
+import org.reactnative.camera.utils.LatestFrameSlot;
+import org.reactnative.camera.utils.MotionGate;
+import org.reactnative.camera.utils.ScratchBufferPool;
 import org.reactnative.camera.utils.RNFileUtils;
 import org.reactnative.facedetector.RNFaceDetector;
+import org.reactnative.textrecognizer.RNTextRecognizer;
 
 import java.io.ByteArrayOutputStream;
 import java.io.File;
@@ -37,6 +45,7 @@ import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.RejectedExecutionException;
 
 public class RNCameraView extends CameraView implements LifecycleEventListener, BarCodeScannerAsyncTaskDelegate, FaceDetectorAsyncTaskDelegate,
     BarcodeDetectorAsyncTaskDelegate, TextRecognizerAsyncTaskDelegate, PictureSavedDelegate {
@@ -59,19 +68,32 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   private Boolean mIsRecordingInterrupted = false;
   private boolean mUseNativeZoom=false;
 
-  // Concurrency lock for scanners to avoid flooding the runtime
-  public volatile boolean barCodeScannerTaskLock = false;
-  public volatile boolean faceDetectorTaskLock = false;
-  public volatile boolean googleBarcodeDetectorTaskLock = false;
-  public volatile boolean textRecognizerTaskLock = false;
+  // One frame in flight per scanner to avoid flooding the runtime, the latest frame waits for it
+  private final LatestFrameSlot mBarCodeScannerSlot = new LatestFrameSlot();
+  private final LatestFrameSlot mFaceDetectorSlot = new LatestFrameSlot();
+  private final LatestFrameSlot mGoogleBarcodeDetectorSlot = new LatestFrameSlot();
+  private final LatestFrameSlot mTextRecognizerSlot = new LatestFrameSlot();
+
+  // Worker lanes for scanners and picture resolution
+  private final FrameAnalysisScheduler mAnalysisScheduler = new FrameAnalysisScheduler();
+  // Buffers for rotated and inverted copies of analyzed frames
+  private final ScratchBufferPool mScratchBuffers = new ScratchBufferPool();
+  // Native memory copies of analyzed frames for the ML detectors
+  private final DirectBufferPool mDirectBuffers = new DirectBufferPool();
+  // Holds back frames of a still scene when enabled
+  private final MotionGate mMotionGate = new MotionGate();
+  private boolean mMotionGateEnabled = false;
 
   // Scanning-related properties
   private MultiFormatReader mMultiFormatReader;
+  private final BarCodeDecodeStrategy mBarCodeDecodeStrategy = new BarCodeDecodeStrategy();
   private RNFaceDetector mFaceDetector;
   private RNBarcodeDetector mGoogleBarcodeDetector;
+  private RNTextRecognizer mTextRecognizer;
   private boolean mShouldDetectFaces = false;
   private boolean mShouldGoogleDetectBarcodes = false;
   private boolean mShouldScanBarCodes = false;
+  private boolean mScanMultipleBarCodes = false;
   private boolean mShouldRecognizeText = false;
   private boolean mShouldDetectTouches = false;
   private int mFaceDetectorMode = RNFaceDetector.FAST_MODE;
@@ -80,17 +102,24 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   private int mGoogleVisionBarCodeType = RNBarcodeDetector.ALL_FORMATS;
   private int mGoogleVisionBarCodeMode = RNBarcodeDetector.NORMAL_MODE;
   private boolean mTrackingEnabled = true;
-  private int mPaddingX;
-  private int mPaddingY;
-
-  // Limit Android Scan Area
-  private boolean mLimitScanArea = false;
-  private float mScanAreaX = 0.0f;
-  private float mScanAreaY = 0.0f;
-  private float mScanAreaWidth = 0.0f;
-  private float mScanAreaHeight = 0.0f;
-  private int mCameraViewWidth = 0;
-  private int mCameraViewHeight = 0;
+
+  // Layout as of the last onLayout, for the analyzers started from the camera's frame thread
+  private volatile int mPaddingX;
+  private volatile int mPaddingY;
+  private volatile int mLayoutWidth;
+  private volatile int mLayoutHeight;
+  private volatile float mDensity = 1;
+
+  // Limit Android Scan Area, read from the camera's frame thread too
+  private volatile boolean mLimitScanArea = false;
+  private volatile float mScanAreaX = 0.0f;
+  private volatile float mScanAreaY = 0.0f;
+  private volatile float mScanAreaWidth = 0.0f;
+  private volatile float mScanAreaHeight = 0.0f;
+  private volatile int mCameraViewWidth = 0;
+  private volatile int mCameraViewHeight = 0;
+  // Whether the ML analyzers only look at the scan area too
+  private volatile boolean mCropToRectOfInterest = false;
 
   public RNCameraView(ThemedReactContext themedReactContext) {
     super(themedReactContext, true);
@@ -116,13 +145,8 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
             promise.resolve(null);
         }
         final File cacheDirectory = mPictureTakenDirectories.remove(promise);
-        if(Build.VERSION.SDK_INT >= 11/*HONEYCOMB*/) {
-          new ResolveTakenPictureAsyncTask(data, promise, options, cacheDirectory, deviceOrientation, RNCameraView.this)
-                  .executeOnExecutor(AsyncTask.THREAD_POOL_EXECUTOR);
-        } else {
-          new ResolveTakenPictureAsyncTask(data, promise, options, cacheDirectory, deviceOrientation, RNCameraView.this)
-                  .execute();
-        }
+        new ResolveTakenPictureAsyncTask(data, promise, options, cacheDirectory, deviceOrientation, RNCameraView.this)
+                .executeOnExecutor(mAnalysisScheduler.getExecutor(FrameAnalysisScheduler.LANE_PICTURE));
         RNCameraViewHelper.emitPictureTakenEvent(cameraView);
       }
 
@@ -161,11 +185,10 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
       @Override
       public void onFramePreview(CameraView cameraView, byte[] data, int width, int height, int rotation) {
-        int correctRotation = RNCameraViewHelper.getCorrectCameraRotation(rotation, getFacing(), getCameraOrientation());
-        boolean willCallBarCodeTask = mShouldScanBarCodes && !barCodeScannerTaskLock && cameraView instanceof BarCodeScannerAsyncTaskDelegate;
-        boolean willCallFaceTask = mShouldDetectFaces && !faceDetectorTaskLock && cameraView instanceof FaceDetectorAsyncTaskDelegate;
-        boolean willCallGoogleBarcodeTask = mShouldGoogleDetectBarcodes && !googleBarcodeDetectorTaskLock && cameraView instanceof BarcodeDetectorAsyncTaskDelegate;
-        boolean willCallTextTask = mShouldRecognizeText && !textRecognizerTaskLock && cameraView instanceof TextRecognizerAsyncTaskDelegate;
+        boolean willCallBarCodeTask = mShouldScanBarCodes && cameraView instanceof BarCodeScannerAsyncTaskDelegate;
+        boolean willCallFaceTask = mShouldDetectFaces && cameraView instanceof FaceDetectorAsyncTaskDelegate;
+        boolean willCallGoogleBarcodeTask = mShouldGoogleDetectBarcodes && cameraView instanceof BarcodeDetectorAsyncTaskDelegate;
+        boolean willCallTextTask = mShouldRecognizeText && cameraView instanceof TextRecognizerAsyncTaskDelegate;
         if (!willCallBarCodeTask && !willCallFaceTask && !willCallGoogleBarcodeTask && !willCallTextTask) {
           return;
         }
@@ -174,42 +197,27 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
             return;
         }
 
-        if (willCallBarCodeTask) {
-          barCodeScannerTaskLock = true;
-          BarCodeScannerAsyncTaskDelegate delegate = (BarCodeScannerAsyncTaskDelegate) cameraView;
-          new BarCodeScannerAsyncTask(delegate, mMultiFormatReader, data, width, height, mLimitScanArea, mScanAreaX, mScanAreaY, mScanAreaWidth, mScanAreaHeight, mCameraViewWidth, mCameraViewHeight, getAspectRatio().toFloat()).execute();
+        if (mMotionGateEnabled && !mMotionGate.hasChanged(data, width, height)) {
+          return;
         }
 
-        if (willCallFaceTask) {
-          faceDetectorTaskLock = true;
-          FaceDetectorAsyncTaskDelegate delegate = (FaceDetectorAsyncTaskDelegate) cameraView;
-          new FaceDetectorAsyncTask(delegate, mFaceDetector, data, width, height, correctRotation, getResources().getDisplayMetrics().density, getFacing(), getWidth(), getHeight(), mPaddingX, mPaddingY).execute();
+        int correctRotation = RNCameraViewHelper.getCorrectCameraRotation(rotation, getFacing(), getCameraOrientation());
+        AnalysisFrame frame = new AnalysisFrame(cameraView, mScratchBuffers, mDirectBuffers, data, width, height, correctRotation);
+
+        if (willCallBarCodeTask && mBarCodeScannerSlot.offer(frame)) {
+          scanBarCodes(frame);
         }
 
-        if (willCallGoogleBarcodeTask) {
-          googleBarcodeDetectorTaskLock = true;
-          if (mGoogleVisionBarCodeMode == RNBarcodeDetector.NORMAL_MODE) {
-            invertImageData = false;
-          } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.ALTERNATE_MODE) {
-            invertImageData = !invertImageData;
-          } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.INVERTED_MODE) {
-            invertImageData = true;
-          }
-          if (invertImageData) {
-            for (int y = 0; y < data.length; y++) {
-              data[y] = (byte) ~data[y];
-            }
-          }
-          BarcodeDetectorAsyncTaskDelegate delegate = (BarcodeDetectorAsyncTaskDelegate) cameraView;
-          new BarcodeDetectorAsyncTask(delegate, mGoogleBarcodeDetector, data, width, height,
-                  correctRotation, getResources().getDisplayMetrics().density, getFacing(),
-                  getWidth(), getHeight(), mPaddingX, mPaddingY).execute();
+        if (willCallFaceTask && mFaceDetectorSlot.offer(frame)) {
+          detectFaces(frame);
+        }
+
+        if (willCallGoogleBarcodeTask && mGoogleBarcodeDetectorSlot.offer(frame)) {
+          detectGoogleBarcodes(frame);
         }
 
-        if (willCallTextTask) {
-          textRecognizerTaskLock = true;
-          TextRecognizerAsyncTaskDelegate delegate = (TextRecognizerAsyncTaskDelegate) cameraView;
-          new TextRecognizerAsyncTask(delegate, mThemedReactContext, data, width, height, correctRotation, getResources().getDisplayMetrics().density, getFacing(), getWidth(), getHeight(), mPaddingX, mPaddingY).execute();
+        if (willCallTextTask && mTextRecognizerSlot.offer(frame)) {
+          recognizeText(frame);
         }
       }
     });
@@ -217,6 +225,9 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   protected void onLayout(boolean changed, int left, int top, int right, int bottom) {
+    mLayoutWidth = right - left;
+    mLayoutHeight = bottom - top;
+    mDensity = getResources().getDisplayMetrics().density;
     View preview = getView();
     if (null == preview) {
       return;
@@ -258,6 +269,150 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     // React handles this for us, so we don't need to call super.requestLayout();
   }
 
+  /**
+   * Runs an analyzer task on its lane. Once the lanes are shut down the task never runs,
+   * so the slot is blocked to release its frames right away.
+   */
+  private void executeAnalyzerTask(AsyncTask<Void, ?, ?> task, int lane, LatestFrameSlot slot) {
+    try {
+      task.executeOnExecutor(mAnalysisScheduler.getExecutor(lane));
+    } catch (RejectedExecutionException e) {
+      slot.block();
+    }
+  }
+
+  private void scanBarCodes(AnalysisFrame frame) {
+    executeAnalyzerTask(new BarCodeScannerAsyncTask(this, mMultiFormatReader, mBarCodeDecodeStrategy, frame, mScanMultipleBarCodes, getRectOfInterest(frame)),
+            FrameAnalysisScheduler.LANE_BAR_CODE_SCANNER, mBarCodeScannerSlot);
+  }
+
+  private void detectFaces(AnalysisFrame frame) {
+    executeAnalyzerTask(new FaceDetectorAsyncTask(this, mFaceDetector, frame, getAnalyzerRegion(frame), mDensity, getFacing(), mLayoutWidth, mLayoutHeight, mPaddingX, mPaddingY),
+            FrameAnalysisScheduler.LANE_FACE_DETECTOR, mFaceDetectorSlot);
+  }
+
+  private void detectGoogleBarcodes(AnalysisFrame frame) {
+    if (mGoogleVisionBarCodeMode == RNBarcodeDetector.NORMAL_MODE) {
+      invertImageData = false;
+    } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.ALTERNATE_MODE) {
+      invertImageData = !invertImageData;
+    } else if (mGoogleVisionBarCodeMode == RNBarcodeDetector.INVERTED_MODE) {
+      invertImageData = true;
+    }
+    executeAnalyzerTask(new BarcodeDetectorAsyncTask(this, mGoogleBarcodeDetector, frame, getAnalyzerRegion(frame), invertImageData,
+            mDetectedImageInEvent, mDensity, getFacing(),
+            mLayoutWidth, mLayoutHeight, mPaddingX, mPaddingY),
+            FrameAnalysisScheduler.LANE_GOOGLE_BARCODE_DETECTOR, mGoogleBarcodeDetectorSlot);
+  }
+
+  private void recognizeText(AnalysisFrame frame) {
+    executeAnalyzerTask(new TextRecognizerAsyncTask(this, mTextRecognizer, frame, getAnalyzerRegion(frame), mDensity, getFacing(), mLayoutWidth, mLayoutHeight, mPaddingX, mPaddingY),
+            FrameAnalysisScheduler.LANE_TEXT_RECOGNIZER, mTextRecognizerSlot);
+  }
+
+  /**
+   * @return Per analyzer counts of analyzed frames and frames dropped in favor of newer ones,
+   * and the time spent copying frames out of the camera.
+   */
+  public WritableMap getFrameAnalysisStats() {
+    WritableMap stats = Arguments.createMap();
+    stats.putMap("barCodeScanner", getSlotStats(mBarCodeScannerSlot));
+    stats.putMap("faceDetector", getSlotStats(mFaceDetectorSlot));
+    stats.putMap("googleBarcodeDetector", getSlotStats(mGoogleBarcodeDetectorSlot));
+    stats.putMap("textRecognizer", getSlotStats(mTextRecognizerSlot));
+    stats.putDouble("frameBufferPoolMisses", getFrameBufferPoolMisses());
+    stats.putDouble("stillFrames", mMotionGate.getStillCount());
+    WritableMap frameCopies = Arguments.createMap();
+    long copyCount = getFrameCopyCount();
+    frameCopies.putDouble("count", copyCount);
+    frameCopies.putDouble("averageMs", copyCount == 0 ? 0 : getFrameCopyNanos() / 1e6 / copyCount);
+    frameCopies.putDouble("maxMs", getMaxFrameCopyNanos() / 1e6);
+    stats.putMap("frameCopies", frameCopies);
+    return stats;
+  }
+
+  /**
+   * @return Counts of the analysis frames the camera produced in the current session,
+   * of those that were acquired and of those skipped in favor of newer frames or dropped.
+   */
+  public WritableMap getFrameStreamStats() {
+    long produced = getFramesProduced();
+    long acquired = getFramesAcquired();
+    WritableMap stats = Arguments.createMap();
+    stats.putDouble("produced", produced);
+    stats.putDouble("acquired", acquired);
+    stats.putDouble("skipped", Math.max(0, produced - acquired));
+    stats.putInt("queueSize", getFrameQueueSize());
+    return stats;
+  }
+
+  private WritableMap getSlotStats(LatestFrameSlot slot) {
+    WritableMap stats = Arguments.createMap();
+    stats.putDouble("analyzed", slot.getAnalyzedCount());
+    stats.putDouble("dropped", slot.getDroppedCount());
+    stats.putDouble("throttled", slot.getThrottledCount());
+    return stats;
+  }
+
+  public void resetAnalysisLanes() {
+    mAnalysisScheduler.resetLanes();
+  }
+
+  public void setPictureThreadCount(int threadCount) {
+    mAnalysisScheduler.setPictureThreadCount(threadCount);
+  }
+
+  public void setAnalysisLanePriority(int lane, int priority) {
+    mAnalysisScheduler.setThreadPriority(lane, priority);
+  }
+
+  /**
+   * @param lane            The lane of the analyzer, see {@link FrameAnalysisScheduler#getLane(String)}.
+   * @param framesPerSecond The highest rate at which the analyzer gets frames, 0 for no limit.
+   */
+  public void setAnalysisRate(int lane, float framesPerSecond) {
+    LatestFrameSlot slot = getAnalyzerSlot(lane);
+    if (slot != null) {
+      slot.setMaxRate(framesPerSecond);
+    }
+  }
+
+  /**
+   * Lifts the rate limit of every analyzer.
+   */
+  public void resetAnalysisRates() {
+    mBarCodeScannerSlot.setMaxRate(0);
+    mFaceDetectorSlot.setMaxRate(0);
+    mGoogleBarcodeDetectorSlot.setMaxRate(0);
+    mTextRecognizerSlot.setMaxRate(0);
+  }
+
+  private LatestFrameSlot getAnalyzerSlot(int lane) {
+    switch (lane) {
+      case FrameAnalysisScheduler.LANE_BAR_CODE_SCANNER:
+        return mBarCodeScannerSlot;
+      case FrameAnalysisScheduler.LANE_FACE_DETECTOR:
+        return mFaceDetectorSlot;
+      case FrameAnalysisScheduler.LANE_GOOGLE_BARCODE_DETECTOR:
+        return mGoogleBarcodeDetectorSlot;
+      case FrameAnalysisScheduler.LANE_TEXT_RECOGNIZER:
+        return mTextRecognizerSlot;
+      default:
+        return null;
+    }
+  }
+
+  public void setMotionGateEnabled(boolean motionGateEnabled) {
+    if (motionGateEnabled && !mMotionGateEnabled) {
+      mMotionGate.reset();
+    }
+    mMotionGateEnabled = motionGateEnabled;
+  }
+
+  public void setMotionThreshold(float motionThreshold) {
+    mMotionGate.setThreshold(motionThreshold);
+  }
+
   public void setBarCodeTypes(List<String> barCodeTypes) {
     mBarCodeTypes = barCodeTypes;
     initBarcodeReader();
@@ -265,6 +420,15 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   public void setDetectedImageInEvent(boolean detectedImageInEvent) {
     this.mDetectedImageInEvent = detectedImageInEvent;
+    updateFrameChromaRequired();
+  }
+
+  /**
+   * The ZXing scanner only reads luminance, so frames skip their chroma unless another
+   * analyzer runs or the scanned image is sent along with the barcodes.
+   */
+  private void updateFrameChromaRequired() {
+    setFrameChromaRequired(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldRecognizeText || mDetectedImageInEvent);
   }
 
   public void takePicture(final ReadableMap options, final Promise promise, final File cacheDirectory) {
@@ -355,6 +519,7 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
     hints.put(DecodeHintType.POSSIBLE_FORMATS, decodeFormats);
     mMultiFormatReader.setHints(hints);
+    mBarCodeDecodeStrategy.setBarCodeFormats(decodeFormats);
   }
 
   public void setShouldScanBarCodes(boolean shouldScanBarCodes) {
@@ -362,7 +527,15 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       initBarcodeReader();
     }
     this.mShouldScanBarCodes = shouldScanBarCodes;
+    if (!shouldScanBarCodes) {
+      mBarCodeScannerSlot.clear();
+    }
     setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
+    updateFrameChromaRequired();
+  }
+
+  public void setScanMultipleBarCodes(boolean scanMultipleBarCodes) {
+    mScanMultipleBarCodes = scanMultipleBarCodes;
   }
 
   public void onBarCodeRead(Result barCode, int width, int height, byte[] imageData) {
@@ -371,29 +544,49 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       return;
     }
 
-    final byte[] compressedImage;
-    if (mDetectedImageInEvent) {
-      try {
-        // https://stackoverflow.com/a/32793908/122441
-        final YuvImage yuvImage = new YuvImage(imageData, ImageFormat.NV21, width, height, null);
-        final ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
-        yuvImage.compressToJpeg(new Rect(0, 0, width, height), 100, imageStream);
-        compressedImage = imageStream.toByteArray();
-      } catch (Exception e) {
-        throw new RuntimeException(String.format("Error decoding imageData from NV21 format (%d bytes)", imageData.length), e);
+    RNCameraViewHelper.emitBarCodeReadEvent(this, barCode, width, height, compressDetectedImage(imageData, width, height));
+  }
+
+  public void onBarCodesRead(Result[] barCodes, int width, int height, byte[] imageData) {
+    if (!mShouldScanBarCodes) {
+      return;
+    }
+    List<Result> readBarCodes = new ArrayList<>(barCodes.length);
+    for (Result barCode : barCodes) {
+      if (mBarCodeTypes.contains(barCode.getBarcodeFormat().toString())) {
+        readBarCodes.add(barCode);
       }
-    } else {
-      compressedImage = null;
     }
+    if (readBarCodes.isEmpty()) {
+      return;
+    }
+
+    RNCameraViewHelper.emitBarCodesReadEvent(this, readBarCodes.toArray(new Result[0]), width, height, compressDetectedImage(imageData, width, height));
+  }
 
-    RNCameraViewHelper.emitBarCodeReadEvent(this, barCode, width, height, compressedImage);
+  private byte[] compressDetectedImage(byte[] imageData, int width, int height) {
+    if (!mDetectedImageInEvent) {
+      return null;
+    }
+    try {
+      // https://stackoverflow.com/a/32793908/122441
+      final YuvImage yuvImage = new YuvImage(imageData, ImageFormat.NV21, width, height, null);
+      final ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
+      yuvImage.compressToJpeg(new Rect(0, 0, width, height), 100, imageStream);
+      return imageStream.toByteArray();
+    } catch (Exception e) {
+      throw new RuntimeException(String.format("Error decoding imageData from NV21 format (%d bytes)", imageData.length), e);
+    }
   }
 
   public void onBarCodeScanningTaskCompleted() {
-    barCodeScannerTaskLock = false;
     if(mMultiFormatReader != null) {
       mMultiFormatReader.reset();
     }
+    AnalysisFrame next = mBarCodeScannerSlot.finish();
+    if (next != null) {
+      scanBarCodes(next);
+    }
   }
 
   // Limit Scan Area
@@ -409,6 +602,43 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     this.mCameraViewHeight = height;
   }
 
+  public void setCropToRectOfInterest(boolean cropToRectOfInterest) {
+    this.mCropToRectOfInterest = cropToRectOfInterest;
+  }
+
+  /**
+   * mCameraViewWidth and mCameraViewHeight are obtained from portait orientation
+   * frame width and height are measured with landscape orientation with Home button to the right
+   * adjustedCamViewWidth is the adjusted width from the Aspect ratio setting
+   *
+   * @return The scan area in frame pixels, or null when the whole frame is scanned.
+   */
+  private Rect getRectOfInterest(AnalysisFrame frame) {
+    if (!mLimitScanArea) {
+      return null;
+    }
+    int width = frame.getWidth();
+    int height = frame.getHeight();
+    int adjustedCamViewWidth = (int) (mCameraViewHeight / getAspectRatio().toFloat());
+    float adjustedScanY = (((adjustedCamViewWidth - mCameraViewWidth) / 2) + (mScanAreaY * mCameraViewWidth)) / adjustedCamViewWidth;
+
+    int left = (int) (mScanAreaX * width);
+    int top = (int) (adjustedScanY * height);
+    int scanWidth = (int) (mScanAreaWidth * width);
+    int scanHeight = (int) (((mScanAreaHeight * mCameraViewWidth) / adjustedCamViewWidth) * height);
+    return new Rect(left, top, left + scanWidth, top + scanHeight);
+  }
+
+  /**
+   * @return The region the face, barcode and text detectors look at, or null for the whole frame.
+   */
+  private Rect getAnalyzerRegion(AnalysisFrame frame) {
+    if (!mCropToRectOfInterest || mCameraViewWidth == 0 || mCameraViewHeight == 0) {
+      return null;
+    }
+    return getRectOfInterest(frame);
+  }
+
 
   public void setShouldDetectTouches(boolean shouldDetectTouches) {
     if(!mShouldDetectTouches && shouldDetectTouches){
@@ -483,7 +713,13 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       setupFaceDetector();
     }
     this.mShouldDetectFaces = shouldDetectFaces;
+    if (shouldDetectFaces) {
+      mFaceDetectorSlot.reset();
+    } else {
+      mFaceDetectorSlot.clear();
+    }
     setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
+    updateFrameChromaRequired();
   }
 
   public void onFacesDetected(WritableArray data) {
@@ -495,6 +731,8 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   }
 
   public void onFaceDetectionError(RNFaceDetector faceDetector) {
+    // the detector is not operational, stop feeding it until face detection is turned on again
+    mFaceDetectorSlot.block();
     if (!mShouldDetectFaces) {
       return;
     }
@@ -504,7 +742,10 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onFaceDetectingTaskCompleted() {
-    faceDetectorTaskLock = false;
+    AnalysisFrame next = mFaceDetectorSlot.finish();
+    if (next != null) {
+      detectFaces(next);
+    }
   }
 
   /**
@@ -520,7 +761,13 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
       setupBarcodeDetector();
     }
     this.mShouldGoogleDetectBarcodes = shouldDetectBarcodes;
+    if (shouldDetectBarcodes) {
+      mGoogleBarcodeDetectorSlot.reset();
+    } else {
+      mGoogleBarcodeDetectorSlot.clear();
+    }
     setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
+    updateFrameChromaRequired();
   }
 
   public void setGoogleVisionBarcodeType(int barcodeType) {
@@ -540,8 +787,9 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     }
 
     // See discussion in https://github.com/react-native-community/react-native-camera/issues/2786
+    // tasks leave the image out when no barcode was found
     final byte[] compressedImage;
-    if (mDetectedImageInEvent) {
+    if (mDetectedImageInEvent && imageData != null) {
       try {
         // https://stackoverflow.com/a/32793908/122441
         final YuvImage yuvImage = new YuvImage(imageData, ImageFormat.NV21, width, height, null);
@@ -559,6 +807,8 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
   }
 
   public void onBarcodeDetectionError(RNBarcodeDetector barcodeDetector) {
+    // the detector is not operational, stop feeding it until barcode detection is turned on again
+    mGoogleBarcodeDetectorSlot.block();
     if (!mShouldGoogleDetectBarcodes) {
       return;
     }
@@ -568,7 +818,10 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onBarcodeDetectingTaskCompleted() {
-    googleBarcodeDetectorTaskLock = false;
+    AnalysisFrame next = mGoogleBarcodeDetectorSlot.finish();
+    if (next != null) {
+      detectGoogleBarcodes(next);
+    }
   }
 
   /**
@@ -577,8 +830,19 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
    */
 
   public void setShouldRecognizeText(boolean shouldRecognizeText) {
+    if (shouldRecognizeText && mTextRecognizer == null) {
+      mTextRecognizer = new RNTextRecognizer(mThemedReactContext);
+    }
     this.mShouldRecognizeText = shouldRecognizeText;
+    if (!shouldRecognizeText) {
+      mTextRecognizerSlot.clear();
+      if (mTextRecognizer != null) {
+        // the engine is recreated on the next frame to recognize
+        mTextRecognizer.release();
+      }
+    }
     setScanning(mShouldDetectFaces || mShouldGoogleDetectBarcodes || mShouldScanBarCodes || mShouldRecognizeText);
+    updateFrameChromaRequired();
   }
 
   public void onTextRecognized(WritableArray serializedData) {
@@ -591,7 +855,10 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
 
   @Override
   public void onTextRecognizerTaskCompleted() {
-    textRecognizerTaskLock = false;
+    AnalysisFrame next = mTextRecognizerSlot.finish();
+    if (next != null) {
+      recognizeText(next);
+    }
   }
 
   /**
@@ -635,7 +902,11 @@ public class RNCameraView extends CameraView implements LifecycleEventListener,
     if (mGoogleBarcodeDetector != null) {
       mGoogleBarcodeDetector.release();
     }
+    if (mTextRecognizer != null) {
+      mTextRecognizer.release();
+    }
     mMultiFormatReader = null;
+    mAnalysisScheduler.shutdown();
     mThemedReactContext.removeLifecycleEventListener(this);
 
     // camera release can be quite expensive. Run in on bg handler
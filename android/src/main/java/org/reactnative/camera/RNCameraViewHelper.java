@@ -321,6 +321,17 @@ public class RNCameraViewHelper {
     });
   }
 
+  public static void emitBarCodesReadEvent(final ViewGroup view, final Result[] barCodes, final int width, final int height, final byte[] compressedImage) {
+    final ReactContext reactContext = (ReactContext) view.getContext();
+    reactContext.runOnNativeModulesQueueThread(new Runnable() {
+      @Override
+      public void run() {
+        BarCodeReadEvent event = BarCodeReadEvent.obtain(view.getId(), barCodes, width,  height, compressedImage);
+        reactContext.getNativeModule(UIManagerModule.class).getEventDispatcher().dispatchEvent(event);
+      }
+    });
+  }
+
   // Text recognition event
 
   public static void emitTextRecognizedEvent(final ViewGroup view, final WritableArray data) {
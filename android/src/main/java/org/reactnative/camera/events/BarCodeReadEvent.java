@@ -19,7 +19,8 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
   private static final Pools.SynchronizedPool<BarCodeReadEvent> EVENTS_POOL =
       new Pools.SynchronizedPool<>(3);
 
-  private Result mBarCode;
+  private Result[] mBarCodes;
+  private boolean mMultiple;
   private int mWidth;
   private int mHeight;
   private byte[] mCompressedImage;
@@ -27,17 +28,30 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
   private BarCodeReadEvent() {}
 
   public static BarCodeReadEvent obtain(int viewTag, Result barCode, int width, int height, byte[] compressedImage) {
+    return obtain(viewTag, new Result[] { barCode }, false, width, height, compressedImage);
+  }
+
+  /**
+   * An event for all barcodes read from one frame. The first one is reported like a single
+   * barcode, all of them are listed in {@code barcodes}.
+   */
+  public static BarCodeReadEvent obtain(int viewTag, Result[] barCodes, int width, int height, byte[] compressedImage) {
+    return obtain(viewTag, barCodes, true, width, height, compressedImage);
+  }
+
+  private static BarCodeReadEvent obtain(int viewTag, Result[] barCodes, boolean multiple, int width, int height, byte[] compressedImage) {
     BarCodeReadEvent event = EVENTS_POOL.acquire();
     if (event == null) {
       event = new BarCodeReadEvent();
     }
-    event.init(viewTag, barCode, width, height, compressedImage);
+    event.init(viewTag, barCodes, multiple, width, height, compressedImage);
     return event;
   }
 
-  private void init(int viewTag, Result barCode, int width, int height, byte[] compressedImage) {
+  private void init(int viewTag, Result[] barCodes, boolean multiple, int width, int height, byte[] compressedImage) {
     super.init(viewTag);
-    mBarCode = barCode;
+    mBarCodes = barCodes;
+    mMultiple = multiple;
     mWidth = width;
     mHeight = height;
     mCompressedImage = compressedImage;
@@ -52,8 +66,11 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
    */
   @Override
   public short getCoalescingKey() {
-    int hashCode = mBarCode.getText().hashCode() % Short.MAX_VALUE;
-    return (short) hashCode;
+    int hashCode = 0;
+    for (Result barCode : mBarCodes) {
+      hashCode = 31 * hashCode + barCode.getText().hashCode();
+    }
+    return (short) (hashCode % Short.MAX_VALUE);
   }
 
   @Override
@@ -67,13 +84,28 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
   }
 
   private WritableMap serializeEventData() {
+    WritableMap event = serializeBarCode(mBarCodes[0]);
+    event.putInt("target", getViewTag());
+    if (mMultiple) {
+      WritableArray barCodes = Arguments.createArray();
+      for (Result barCode : mBarCodes) {
+        barCodes.pushMap(serializeBarCode(barCode));
+      }
+      event.putArray("barcodes", barCodes);
+    }
+    if (mCompressedImage != null) {
+      event.putString("image", Base64.encodeToString(mCompressedImage, Base64.NO_WRAP));
+    }
+    return event;
+  }
+
+  private WritableMap serializeBarCode(Result barCode) {
     WritableMap event = Arguments.createMap();
     WritableMap eventOrigin = Arguments.createMap();
 
-    event.putInt("target", getViewTag());
-    event.putString("data", mBarCode.getText());
+    event.putString("data", barCode.getText());
 
-    byte[] rawBytes = mBarCode.getRawBytes();
+    byte[] rawBytes = barCode.getRawBytes();
     if (rawBytes != null && rawBytes.length > 0) {
       Formatter formatter = new Formatter();
       for (byte b : rawBytes) {
@@ -83,9 +115,9 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
       formatter.close();
     } 
 
-    event.putString("type", mBarCode.getBarcodeFormat().toString());
+    event.putString("type", barCode.getBarcodeFormat().toString());
     WritableArray resultPoints = Arguments.createArray();
-    ResultPoint[] points = mBarCode.getResultPoints();
+    ResultPoint[] points = barCode.getResultPoints();
     for (ResultPoint point: points) {
       if(point!=null) {
         WritableMap newPoint = Arguments.createMap();
@@ -99,9 +131,6 @@ public class BarCodeReadEvent extends Event<BarCodeReadEvent> {
     eventOrigin.putInt("height", mHeight);
     eventOrigin.putInt("width", mWidth);
     event.putMap("bounds", eventOrigin);
-    if (mCompressedImage != null) {
-      event.putString("image", Base64.encodeToString(mCompressedImage, Base64.NO_WRAP));
-    }
     return event;
   }
 }
@@ -1,187 +1,143 @@
 package org.reactnative.camera.tasks;
 
+import android.graphics.Rect;
+
 import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.LuminanceSource;
 import com.google.zxing.MultiFormatReader;
 import com.google.zxing.NotFoundException;
-import com.google.zxing.PlanarYUVLuminanceSource;
+import com.google.zxing.Reader;
 import com.google.zxing.Result;
-import com.google.zxing.common.HybridBinarizer;
+import com.google.zxing.multi.GenericMultipleBarcodeReader;
+import com.google.zxing.multi.MultipleBarcodeReader;
+
+import java.util.Map;
+
+import org.reactnative.camera.utils.AnalysisFrame;
+import org.reactnative.camera.utils.BarCodeDecodeStrategy;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
+import org.reactnative.camera.utils.NV21LuminanceSource;
+import org.reactnative.camera.utils.ReusableHybridBinarizer;
 
-public class BarCodeScannerAsyncTask extends android.os.AsyncTask<Void, Void, Result> {
-  private byte[] mImageData;
+public class BarCodeScannerAsyncTask extends android.os.AsyncTask<Void, Void, Result[]> {
+  private AnalysisFrame mFrame;
   private int mWidth;
   private int mHeight;
   private BarCodeScannerAsyncTaskDelegate mDelegate;
   private final MultiFormatReader mMultiFormatReader;
-  private boolean mLimitScanArea;
-  private float mScanAreaX;
-  private float mScanAreaY;
-  private float mScanAreaWidth;
-  private float mScanAreaHeight;
-  private int mCameraViewWidth;
-  private int mCameraViewHeight;
-  private float mRatio;
+  private final BarCodeDecodeStrategy mDecodeStrategy;
+  private final MultipleBarcodeReader mMultipleBarcodeReader;
+  private Rect mScanArea;
 
   //  note(sjchmiela): From my short research it's ok to ignore rotation of the image.
   public BarCodeScannerAsyncTask(
       BarCodeScannerAsyncTaskDelegate delegate,
       MultiFormatReader multiFormatReader,
-      byte[] imageData,
-      int width,
-      int height,
-      boolean limitScanArea,
-      float scanAreaX,
-      float scanAreaY,
-      float scanAreaWidth,
-      float scanAreaHeight,
-      int cameraViewWidth,
-      int cameraViewHeight,
-      float ratio
+      BarCodeDecodeStrategy decodeStrategy,
+      AnalysisFrame frame,
+      boolean scanMultiple,
+      Rect scanArea
   ) {
-    mImageData = imageData;
-    mWidth = width;
-    mHeight = height;
+    mFrame = frame;
+    mWidth = frame.getWidth();
+    mHeight = frame.getHeight();
     mDelegate = delegate;
     mMultiFormatReader = multiFormatReader;
-    mLimitScanArea = limitScanArea;
-    mScanAreaX = scanAreaX;
-    mScanAreaY = scanAreaY;
-    mScanAreaWidth = scanAreaWidth;
-    mScanAreaHeight = scanAreaHeight;
-    mCameraViewWidth = cameraViewWidth;
-    mCameraViewHeight = cameraViewHeight;
-    mRatio = ratio;
+    mDecodeStrategy = decodeStrategy;
+    mMultipleBarcodeReader = scanMultiple ? new GenericMultipleBarcodeReader(new ConfiguredReader(multiFormatReader)) : null;
+    mScanArea = scanArea;
   }
 
   @Override
-  protected Result doInBackground(Void... ignored) {
+  protected Result[] doInBackground(Void... ignored) {
+    FrameAnalysisScheduler.applyLanePriority();
     if (isCancelled() || mDelegate == null) {
       return null;
     }
 
-    Result result = null;
-    /**
-     * mCameraViewWidth and mCameraViewHeight are obtained from portait orientation
-     * mWidth and mHeight are measured with landscape orientation with Home button to the right
-     * adjustedCamViewWidth is the adjusted width from the Aspect ratio setting
-     */
-    int adjustedCamViewWidth = (int) (mCameraViewHeight / mRatio);
-    float adjustedScanY = (((adjustedCamViewWidth - mCameraViewWidth) / 2) + (mScanAreaY * mCameraViewWidth)) / adjustedCamViewWidth;
-    
-    int left = (int) (mScanAreaX * mWidth);
-    int top = (int) (adjustedScanY * mHeight);
-    int scanWidth = (int) (mScanAreaWidth * mWidth);
-    int scanHeight = (int) (((mScanAreaHeight * mCameraViewWidth) / adjustedCamViewWidth) * mHeight);
-
+    Result[] results = null;
     try {
-      BinaryBitmap bitmap = generateBitmapFromImageData(
-              mImageData,
-              mWidth,
-              mHeight,
-              false,
-              left,
-              top,
-              scanWidth,
-              scanHeight
-      );
-      result = mMultiFormatReader.decodeWithState(bitmap);
-    } catch (NotFoundException e) {
-      BinaryBitmap bitmap = generateBitmapFromImageData(
-              rotateImage(mImageData,mWidth, mHeight),
-              mHeight,
-              mWidth,
-              false,
-              mHeight - scanHeight - top,
-              left,
-              scanHeight,
-              scanWidth
-      );
-      try {
-        result = mMultiFormatReader.decodeWithState(bitmap);
-      } catch (NotFoundException e1) {
-          BinaryBitmap invertedBitmap = generateBitmapFromImageData(
-                  mImageData,
-                  mWidth,
-                  mHeight,
-                  true,
-                  mWidth - scanWidth - left,
-                  mHeight - scanHeight - top,
-                  scanWidth,
-                  scanHeight
-          );
+      NV21LuminanceSource source = new NV21LuminanceSource(mFrame.getLuminance(), mWidth, mHeight);
+      if (mScanArea != null) {
+        source = source.crop(mScanArea.left, mScanArea.top, mScanArea.width(), mScanArea.height());
+      }
+      int[] attempts = new int[BarCodeDecodeStrategy.VARIANT_COUNT];
+      int attemptCount = mDecodeStrategy.nextAttempts(attempts);
+      for (int i = 0; i < attemptCount && results == null; i++) {
+        BinaryBitmap bitmap = generateBitmap(getVariant(source, attempts[i]));
         try {
-          result = mMultiFormatReader.decodeWithState(invertedBitmap);
-        } catch (NotFoundException e2) {
-          BinaryBitmap invertedRotatedBitmap = generateBitmapFromImageData(
-                  rotateImage(mImageData,mWidth, mHeight),
-                  mHeight,
-                  mWidth,
-                  true,
-                  top,
-                  mWidth - scanWidth - left,
-                  scanHeight,
-                  scanWidth
-          );
-          try {
-            result = mMultiFormatReader.decodeWithState(invertedRotatedBitmap);
-          } catch (NotFoundException e3) {
-            //no barcode Found
+          if (mMultipleBarcodeReader != null) {
+            // finds every code in the frame, looking around each one it decodes
+            results = mMultipleBarcodeReader.decodeMultiple(bitmap);
+          } else {
+            results = new Result[] { mMultiFormatReader.decodeWithState(bitmap) };
           }
+          mDecodeStrategy.onDecoded(attempts[i]);
+        } catch (NotFoundException e) {
+          // try the next variant
         }
       }
     } catch (Throwable t) {
       t.printStackTrace();
     }
 
-    return result;
+    return results;
   }
-  private byte[] rotateImage(byte[]imageData,int width, int height) {
-    byte[] rotated = new byte[imageData.length];
-    for (int y = 0; y < height; y++) {
-      for (int x = 0; x < width; x++) {
-        rotated[x * height + height - y - 1] = imageData[x + y * width];
+  @Override
+  protected void onPostExecute(Result[] results) {
+    super.onPostExecute(results);
+    if (results != null) {
+      if (mMultipleBarcodeReader != null) {
+        mDelegate.onBarCodesRead(results, mWidth, mHeight, mFrame.getData());
+      } else {
+        mDelegate.onBarCodeRead(results[0], mWidth, mHeight, mFrame.getData());
       }
     }
-    return rotated;
+    mDelegate.onBarCodeScanningTaskCompleted();
   }
-  @Override
-  protected void onPostExecute(Result result) {
-    super.onPostExecute(result);
-    if (result != null) {
-      mDelegate.onBarCodeRead(result, mWidth, mHeight, mImageData);
+
+  private LuminanceSource getVariant(NV21LuminanceSource source, int variant) {
+    switch (variant) {
+      case BarCodeDecodeStrategy.VARIANT_ROTATED:
+        return source.rotateClockwise();
+      case BarCodeDecodeStrategy.VARIANT_INVERTED:
+        return source.invert();
+      case BarCodeDecodeStrategy.VARIANT_INVERTED_ROTATED:
+        return source.invert().rotateClockwise();
+      default:
+        return source;
     }
-    mDelegate.onBarCodeScanningTaskCompleted();
   }
 
-  private BinaryBitmap generateBitmapFromImageData(byte[] imageData, int width, int height, boolean inverse, int left, int top, int sWidth, int sHeight) {
-    PlanarYUVLuminanceSource source;
-    if (mLimitScanArea) {
-      source = new PlanarYUVLuminanceSource(
-        imageData, // byte[] yuvData
-        width, // int dataWidth
-        height, // int dataHeight
-        left, // int left
-        top, // int top
-        sWidth, // int width
-        sHeight, // int height
-        false // boolean reverseHorizontal
-      );
-    } else {
-        source = new PlanarYUVLuminanceSource(
-        imageData, // byte[] yuvData
-        width, // int dataWidth
-        height, // int dataHeight
-        0, // int left
-        0, // int top
-        width, // int width
-        height, // int height
-        false // boolean reverseHorizontal
-      );
+  private BinaryBitmap generateBitmap(LuminanceSource source) {
+    return new BinaryBitmap(new ReusableHybridBinarizer(source));
+  }
+
+  /**
+   * Decodes with the formats the MultiFormatReader was set up with. Its own decode methods would
+   * replace them with the hints passed by the multiple barcode reader, which are none.
+   */
+  private static class ConfiguredReader implements Reader {
+    private final MultiFormatReader mReader;
+
+    ConfiguredReader(MultiFormatReader reader) {
+      mReader = reader;
     }
-    if (inverse) {
-      return new BinaryBitmap(new HybridBinarizer(source.invert()));
-    } else {
-      return new BinaryBitmap(new HybridBinarizer(source));
+
+    @Override
+    public Result decode(BinaryBitmap image) throws NotFoundException {
+      return mReader.decodeWithState(image);
+    }
+
+    @Override
+    public Result decode(BinaryBitmap image, Map<DecodeHintType, ?> hints) throws NotFoundException {
+      return mReader.decodeWithState(image);
+    }
+
+    @Override
+    public void reset() {
+      mReader.reset();
     }
   }
 }
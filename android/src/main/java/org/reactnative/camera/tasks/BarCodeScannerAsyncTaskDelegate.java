@@ -4,5 +4,6 @@ import com.google.zxing.Result;
 
 public interface BarCodeScannerAsyncTaskDelegate {
   void onBarCodeRead(Result barCode, int width, int height, byte[] imageData);
+  void onBarCodesRead(Result[] barCodes, int width, int height, byte[] imageData);
   void onBarCodeScanningTaskCompleted();
 }
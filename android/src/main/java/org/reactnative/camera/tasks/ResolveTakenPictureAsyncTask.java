@@ -3,14 +3,21 @@ package org.reactnative.camera.tasks;
 import android.content.res.Resources;
 import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
 import android.graphics.Matrix;
+import android.graphics.Paint;
+import android.graphics.RectF;
 import android.net.Uri;
 import android.os.AsyncTask;
 import androidx.exifinterface.media.ExifInterface;
 import android.util.Base64;
+import android.util.Base64OutputStream;
 
 import org.reactnative.camera.RNCameraViewHelper;
+import org.reactnative.camera.utils.ExifSplicer;
+import org.reactnative.camera.utils.LosslessJpegRotation;
 import org.reactnative.camera.utils.RNFileUtils;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
 
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.Promise;
@@ -18,11 +25,13 @@ import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.ReadableType;
 import com.facebook.react.bridge.WritableMap;
 
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 
 public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, WritableMap> {
     private static final String ERROR_TAG = "E_TAKING_PICTURE_FAILED";
@@ -33,6 +42,8 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
     private File mCacheDirectory;
     private int mDeviceOrientation;
     private PictureSavedDelegate mPictureSavedDelegate;
+    // power of two the picture is shrunk by while decoding
+    private int mSampleSize = 1;
 
     public ResolveTakenPictureAsyncTask(byte[] imageData, Promise promise, ReadableMap options, File cacheDirectory, int deviceOrientation, PictureSavedDelegate delegate) {
         mPromise = promise;
@@ -50,7 +61,9 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
     // loads bitmap only if necessary
     private void loadBitmap() throws IOException {
         if(mBitmap == null){
-            mBitmap = BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length);
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inSampleSize = mSampleSize;
+            mBitmap = BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length, options);
         }
         if(mBitmap == null){
             throw new IOException("Failed to decode Image Bitmap");
@@ -59,6 +72,7 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
 
     @Override
     protected WritableMap doInBackground(Void... voids) {
+        FrameAnalysisScheduler.applyLanePriority();
         WritableMap response = Arguments.createMap();
         ByteArrayInputStream inputStream = null;
         ExifInterface exifInterface = null;
@@ -66,6 +80,8 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
         ReadableMap exifExtraData = null;
 
         boolean orientationChanged = false;
+        // rotation left to apply on the decoded bitmap
+        int bitmapRotation = 0;
 
         response.putInt("deviceOrientation", mDeviceOrientation);
         response.putInt("pictureOrientation", mOptions.hasKey("orientation") ? mOptions.getInt("orientation") : mDeviceOrientation);
@@ -89,21 +105,46 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
                 // Get orientation of the image from mImageData via inputStream
                 int orientation = exifInterface.getAttributeInt(ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_UNDEFINED);
 
-                if(orientation != ExifInterface.ORIENTATION_UNDEFINED){
-                    loadBitmap();
-                    mBitmap = rotateBitmap(mBitmap, getImageRotation(orientation));
-                    orientationChanged = true;
+                // an upright picture is left alone, decoding and encoding it again would only lose quality
+                if(orientation != ExifInterface.ORIENTATION_UNDEFINED && orientation != ExifInterface.ORIENTATION_NORMAL){
+                    int rotation = getImageRotation(orientation);
+
+                    // Try moving the compressed blocks around first, it skips the decode and
+                    // re-encode entirely and loses nothing. The result already has a normal orientation.
+                    byte[] rotatedData = rotation != 0 ? LosslessJpegRotation.rotate(mImageData, rotation) : null;
+                    if(rotatedData != null){
+                        mImageData = rotatedData;
+                        inputStream = new ByteArrayInputStream(mImageData);
+                        exifInterface = null;
+                    }
+                    else{
+                        bitmapRotation = rotation;
+                        orientationChanged = true;
+                    }
                 }
             }
 
+            // The requested width applies to the upright picture. Work out the final size from the
+            // picture header, so the decoder can skip most of the pixels when shrinking a lot.
+            int resizeWidth = 0;
+            int resizeHeight = 0;
             if (mOptions.hasKey("width")) {
-                loadBitmap();
-                mBitmap = resizeBitmap(mBitmap, mOptions.getInt("width"));
+                BitmapFactory.Options bounds = new BitmapFactory.Options();
+                bounds.inJustDecodeBounds = true;
+                BitmapFactory.decodeByteArray(mImageData, 0, mImageData.length, bounds);
+                boolean sideways = bitmapRotation == 90 || bitmapRotation == 270;
+                int uprightWidth = sideways ? bounds.outHeight : bounds.outWidth;
+                int uprightHeight = sideways ? bounds.outWidth : bounds.outHeight;
+                resizeWidth = mOptions.getInt("width");
+                resizeHeight = (int) (uprightHeight * ((float) resizeWidth / (float) uprightWidth));
+                mSampleSize = getSampleSize(uprightWidth, resizeWidth);
             }
 
-            if (mOptions.hasKey("mirrorImage") && mOptions.getBoolean("mirrorImage")) {
+            // rotation, resizing and mirroring all go into a single draw
+            boolean mirror = mOptions.hasKey("mirrorImage") && mOptions.getBoolean("mirrorImage");
+            if (orientationChanged || mOptions.hasKey("width") || mirror) {
                 loadBitmap();
-                mBitmap = flipHorizontally(mBitmap);
+                mBitmap = transformBitmap(mBitmap, bitmapRotation, resizeWidth, resizeHeight, mirror);
             }
 
 
@@ -184,29 +225,42 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
 
                     imageFile.createNewFile();
 
-                    FileOutputStream fOut = new FileOutputStream(imageFile);
-
-                    // Save byte array (it is already a JPEG)
-                    fOut.write(mImageData);
-                    fOut.flush();
-                    fOut.close();
-
-                    // update exif data if needed.
+                    // update exif data if needed, it is spliced in as the file is written.
                     // Since we didn't modify the image, we only update if we have extra exif info
+                    byte[] exifSegment = null;
                     if (writeExifToFile && exifExtraData != null) {
-                        ExifInterface fileExifInterface = new ExifInterface(imageFile.getAbsolutePath());
-                        RNCameraViewHelper.setExifData(fileExifInterface, exifExtraData);
-                        fileExifInterface.saveAttributes();
+                        final ReadableMap extraData = exifExtraData;
+                        exifSegment = ExifSplicer.buildSegment(mImageData, options.outWidth, options.outHeight, mCacheDirectory, new ExifSplicer.Editor() {
+                            @Override
+                            public void edit(ExifInterface exifInterface) {
+                                RNCameraViewHelper.setExifData(exifInterface, extraData);
+                            }
+                        });
                     }
                     else if (!writeExifToFile){
                         // if we were requested to NOT store exif, we actually need to
                         // clear the exif tags
-                        ExifInterface fileExifInterface = new ExifInterface(imageFile.getAbsolutePath());
-                        RNCameraViewHelper.clearExifData(fileExifInterface);
-                        fileExifInterface.saveAttributes();
+                        exifSegment = ExifSplicer.buildSegment(mImageData, 0, 0, mCacheDirectory, new ExifSplicer.Editor() {
+                            @Override
+                            public void edit(ExifInterface exifInterface) {
+                                RNCameraViewHelper.clearExifData(exifInterface);
+                            }
+                        });
                     }
                     // else: exif is unmodified, no need to update anything
 
+                    // Save byte array (it is already a JPEG)
+                    OutputStream fOut = new BufferedOutputStream(new FileOutputStream(imageFile));
+                    try {
+                        if (exifSegment != null) {
+                            ExifSplicer.writeJpeg(mImageData, exifSegment, fOut);
+                        } else {
+                            fOut.write(mImageData);
+                        }
+                    } finally {
+                        fOut.close();
+                    }
+
                     // Return file system URI
                     String fileUri = Uri.fromFile(imageFile).toString();
                     response.putString("uri", fileUri);
@@ -223,30 +277,50 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
                 response.putInt("width", mBitmap.getWidth());
                 response.putInt("height", mBitmap.getHeight());
 
-                // Cache compressed image in imageStream
-                ByteArrayOutputStream imageStream = new ByteArrayOutputStream();
-                mBitmap.compress(Bitmap.CompressFormat.JPEG, getQuality(), imageStream);
-
+                boolean writeBase64ToResponse = mOptions.hasKey("base64") && mOptions.getBoolean("base64");
 
-                // Write compressed image to file in cache directory unless otherwise specified
+                // Write compressed image to file in cache directory unless otherwise specified.
+                // The JPEG goes straight to the file, it is never held in memory as a whole.
                 if (!mOptions.hasKey("doNotSave") || !mOptions.getBoolean("doNotSave")) {
-                    String filePath = writeStreamToFile(imageStream);
 
                     // since we lost any exif data on bitmap creation, we only need
-                    // to add it if requested
+                    // to add it if requested. It is spliced in as the file is written.
+                    byte[] exifSegment = null;
                     if (writeExifToFile && exifData != null) {
-                        ExifInterface fileExifInterface = new ExifInterface(filePath);
-                        RNCameraViewHelper.setExifData(fileExifInterface, exifData);
-                        fileExifInterface.saveAttributes();
+                        final ReadableMap fileExifData = exifData;
+                        // the map holds the dimensions of the picture as taken, the segment gets the resized ones
+                        exifSegment = ExifSplicer.buildSegment(null, mBitmap.getWidth(), mBitmap.getHeight(), mCacheDirectory, new ExifSplicer.Editor() {
+                            @Override
+                            public void edit(ExifInterface exifInterface) {
+                                RNCameraViewHelper.setExifData(exifInterface, fileExifData);
+                            }
+                        });
                     }
+
+                    String filePath = writeBitmapToFile(mBitmap, exifSegment);
                     File imageFile = new File(filePath);
+
+                    // Write base64-encoded image to the response if requested, read back from the file
+                    if (writeBase64ToResponse) {
+                        response.putString("base64", RNFileUtils.readBase64(imageFile));
+                    }
+
                     String fileUri = Uri.fromFile(imageFile).toString();
                     response.putString("uri", fileUri);
                 }
-
-                // Write base64-encoded image to the response if requested
-                if (mOptions.hasKey("base64") && mOptions.getBoolean("base64")) {
-                    response.putString("base64", Base64.encodeToString(imageStream.toByteArray(), Base64.NO_WRAP));
+                else if (writeBase64ToResponse) {
+                    // nothing to save, encode while compressing so only the encoded image is held in memory
+                    ByteArrayOutputStream base64Stream = new ByteArrayOutputStream();
+                    Base64OutputStream encoder = new Base64OutputStream(base64Stream, Base64.NO_WRAP);
+                    try {
+                        if (!mBitmap.compress(Bitmap.CompressFormat.JPEG, getQuality(), encoder)) {
+                            throw new IOException("Failed to compress image");
+                        }
+                    } finally {
+                        // flushes the last encoded bytes
+                        encoder.close();
+                    }
+                    response.putString("base64", base64Stream.toString("US-ASCII"));
                 }
 
             }
@@ -275,24 +349,49 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
         return null;
     }
 
-    private Bitmap rotateBitmap(Bitmap source, int angle) {
+    /**
+     * Rotates, scales and mirrors the bitmap with a single matrix, drawing it once into the
+     * resulting bitmap instead of going through a full size bitmap for every step.
+     *
+     * @param angle  Clockwise rotation in degrees.
+     * @param width  Width of the result, or 0 to keep the rotated size. The bitmap may have been
+     *               decoded at a reduced size, so the final size is given outright.
+     * @param mirror Whether to flip the result horizontally.
+     */
+    private Bitmap transformBitmap(Bitmap source, int angle, int width, int height, boolean mirror) {
         Matrix matrix = new Matrix();
         matrix.postRotate(angle);
-        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
-    }
-
-    private Bitmap resizeBitmap(Bitmap bm, int newWidth) {
-        int width = bm.getWidth();
-        int height = bm.getHeight();
-        float scaleRatio = (float) newWidth / (float) width;
+        RectF bounds = new RectF(0, 0, source.getWidth(), source.getHeight());
+        matrix.mapRect(bounds);
+        matrix.postTranslate(-bounds.left, -bounds.top);
+        if (width <= 0 || height <= 0) {
+            width = Math.round(bounds.width());
+            height = Math.round(bounds.height());
+        }
+        matrix.postScale(width / bounds.width(), height / bounds.height());
+        if (mirror) {
+            matrix.postScale(-1.0f, 1.0f);
+            matrix.postTranslate(width, 0);
+        }
+        if (matrix.isIdentity()) {
+            return source;
+        }
 
-        return Bitmap.createScaledBitmap(bm, newWidth, (int) (height * scaleRatio), true);
+        Bitmap.Config config = source.getConfig() != null ? source.getConfig() : Bitmap.Config.ARGB_8888;
+        Bitmap result = Bitmap.createBitmap(width, height, config);
+        new Canvas(result).drawBitmap(source, matrix, new Paint(Paint.FILTER_BITMAP_FLAG));
+        source.recycle();
+        return result;
     }
 
-    private Bitmap flipHorizontally(Bitmap source) {
-        Matrix matrix = new Matrix();
-        matrix.preScale(-1.0f, 1.0f);
-        return Bitmap.createBitmap(source, 0, 0, source.getWidth(), source.getHeight(), matrix, true);
+    // Largest power of two the decoder may shrink the picture by while staying at least as wide
+    // as requested, so the exact scale afterwards only ever shrinks it a little further.
+    private int getSampleSize(int width, int requestedWidth) {
+        int sampleSize = 1;
+        while (requestedWidth > 0 && width / (sampleSize * 2) >= requestedWidth) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
     }
 
     // Get rotation degrees from Exif orientation enum
@@ -320,15 +419,20 @@ public class ResolveTakenPictureAsyncTask extends AsyncTask<Void, Void, Writable
         return RNFileUtils.getOutputFilePath(mCacheDirectory, ".jpg");
     }
 
-    private String writeStreamToFile(ByteArrayOutputStream inputStream) throws IOException {
+    private String writeBitmapToFile(Bitmap bitmap, byte[] exifSegment) throws IOException {
         String outputPath = null;
         IOException exception = null;
-        FileOutputStream outputStream = null;
+        OutputStream outputStream = null;
 
         try {
             outputPath = getImagePath();
-            outputStream = new FileOutputStream(outputPath);
-            inputStream.writeTo(outputStream);
+            outputStream = new BufferedOutputStream(new FileOutputStream(outputPath));
+            if (exifSegment != null) {
+                outputStream = ExifSplicer.insertSegment(outputStream, exifSegment);
+            }
+            if (!bitmap.compress(Bitmap.CompressFormat.JPEG, getQuality(), outputStream)) {
+                throw new IOException("Failed to compress Image Bitmap");
+            }
         } catch (IOException e) {
             e.printStackTrace();
             exception = e;
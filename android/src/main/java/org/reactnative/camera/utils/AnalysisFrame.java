@@ -0,0 +1,259 @@
+package org.reactnative.camera.utils;
+
+import android.graphics.Rect;
+
+import com.google.android.cameraview.CameraView;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A preview frame handed to the analyzers. Whoever keeps it beyond the frame callback holds a
+ * reference on the underlying camera buffer through {@link #retain()} and {@link #release()}.
+ *
+ * Analyzers running on the same frame share it, so views derived from the NV21 data are
+ * computed on first use and cached for everyone else. The frame data itself is never modified.
+ * Derived copies live in scratch buffers that are recycled once the last reference is released.
+ *
+ * Crops made with {@link #crop(Rect)} are frames of their own that share the lifetime of the
+ * frame they were cut from.
+ */
+public class AnalysisFrame {
+  private final CameraView mCameraView;
+  private final ScratchBufferPool mScratchBuffers;
+  private final DirectBufferPool mDirectBuffers;
+  private final byte[] mData;
+  private final int mWidth;
+  private final int mHeight;
+  private final int mRotation;
+  // the frame this one was cropped from, null for camera frames
+  private final AnalysisFrame mParent;
+  // position of this frame in the upright parent frame
+  private final int mUprightLeft;
+  private final int mUprightTop;
+  // position of this frame in the parent frame as it comes from the camera
+  private final int mCropLeft;
+  private final int mCropTop;
+
+  private final List<AnalysisFrame> mCrops = new ArrayList<>();
+  private byte[] mInvertedData;
+  private ByteBuffer mDirectData;
+  private ByteBuffer mDirectInvertedData;
+  private int mReferences = 0;
+
+  public AnalysisFrame(CameraView cameraView, ScratchBufferPool scratchBuffers, DirectBufferPool directBuffers,
+                       byte[] data, int width, int height, int rotation) {
+    this(cameraView, scratchBuffers, directBuffers, data, width, height, rotation, null, 0, 0, 0, 0);
+  }
+
+  private AnalysisFrame(CameraView cameraView, ScratchBufferPool scratchBuffers, DirectBufferPool directBuffers,
+                        byte[] data, int width, int height, int rotation,
+                        AnalysisFrame parent, int cropLeft, int cropTop, int uprightLeft, int uprightTop) {
+    mCameraView = cameraView;
+    mScratchBuffers = scratchBuffers;
+    mDirectBuffers = directBuffers;
+    mData = data;
+    mWidth = width;
+    mHeight = height;
+    mRotation = rotation;
+    mParent = parent;
+    mCropLeft = cropLeft;
+    mCropTop = cropTop;
+    mUprightLeft = uprightLeft;
+    mUprightTop = uprightTop;
+  }
+
+  /**
+   * @return The NV21 frame data.
+   */
+  public byte[] getData() {
+    return mData;
+  }
+
+  /**
+   * NV21 starts with the full resolution Y plane, so the frame data doubles as luminance
+   * without copying. Only the first {@code width * height} bytes are luminance.
+   *
+   * @return The luminance plane, {@link #getWidth()} by {@link #getHeight()}.
+   */
+  public byte[] getLuminance() {
+    return mData;
+  }
+
+  /**
+   * @return A copy of the NV21 frame data with every byte inverted.
+   */
+  public synchronized byte[] getInvertedData() {
+    if (mInvertedData == null) {
+      byte[] inverted = mScratchBuffers.obtain(mData.length);
+      for (int i = 0; i < mData.length; i++) {
+        inverted[i] = (byte) ~mData[i];
+      }
+      mInvertedData = inverted;
+    }
+    return mInvertedData;
+  }
+
+  /**
+   * The frame data in native memory, for detectors that read it from there. The copy is made
+   * once per frame, however many detectors read it.
+   *
+   * @param inverted Whether to return the data of {@link #getInvertedData()} instead.
+   * @return A view over the direct copy, positioned at the start of the data. Detectors must not write to it.
+   */
+  public synchronized ByteBuffer getDirectData(boolean inverted) {
+    ByteBuffer direct = inverted ? mDirectInvertedData : mDirectData;
+    if (direct == null) {
+      direct = mDirectBuffers.obtain(mData.length);
+      direct.put(inverted ? getInvertedData() : mData);
+      direct.flip();
+      if (inverted) {
+        mDirectInvertedData = direct;
+      } else {
+        mDirectData = direct;
+      }
+    }
+    // every detector gets its own position and limit
+    return direct.duplicate();
+  }
+
+  /**
+   * Copies a region of the frame into a smaller NV21 frame, so detectors only look at the pixels
+   * that matter. The region is widened to even coordinates to keep the chroma samples aligned.
+   * The copy is made once per frame and region, however many detectors read it.
+   *
+   * @param region The region to keep in frame coordinates, or null for the whole frame.
+   * @return The cropped frame, or this frame if the region covers all of it or none of it.
+   */
+  public synchronized AnalysisFrame crop(Rect region) {
+    if (region == null) {
+      return this;
+    }
+    int left = Math.max(0, region.left) & ~1;
+    int top = Math.max(0, region.top) & ~1;
+    int right = Math.min(mWidth, (region.right + 1) & ~1);
+    int bottom = Math.min(mHeight, (region.bottom + 1) & ~1);
+    if (left >= right || top >= bottom || (right - left == mWidth && bottom - top == mHeight)) {
+      return this;
+    }
+    for (AnalysisFrame crop : mCrops) {
+      if (crop.mCropLeft == left && crop.mCropTop == top && crop.mWidth == right - left && crop.mHeight == bottom - top) {
+        return crop;
+      }
+    }
+    AnalysisFrame crop = cropRegion(left, top, right - left, bottom - top);
+    mCrops.add(crop);
+    return crop;
+  }
+
+  private AnalysisFrame cropRegion(int left, int top, int width, int height) {
+    byte[] data = mScratchBuffers.obtain(width * height + 2 * ((width + 1) / 2) * ((height + 1) / 2));
+    for (int row = 0; row < height; row++) {
+      System.arraycopy(mData, (top + row) * mWidth + left, data, row * width, width);
+    }
+    // interleaved VU rows at half the vertical resolution, left is even so a row starts on a V sample
+    int chromaStride = 2 * ((mWidth + 1) / 2);
+    int chromaLength = 2 * ((width + 1) / 2);
+    int chromaStart = mWidth * mHeight + (top / 2) * chromaStride + left;
+    int out = width * height;
+    for (int row = 0; row < (height + 1) / 2; row++, out += chromaLength) {
+      System.arraycopy(mData, chromaStart + row * chromaStride, data, out, chromaLength);
+    }
+
+    int uprightLeft;
+    int uprightTop;
+    switch (((mRotation % 360) + 360) % 360) {
+      case 90:
+        uprightLeft = mHeight - top - height;
+        uprightTop = left;
+        break;
+      case 180:
+        uprightLeft = mWidth - left - width;
+        uprightTop = mHeight - top - height;
+        break;
+      case 270:
+        uprightLeft = top;
+        uprightTop = mWidth - left - width;
+        break;
+      default:
+        uprightLeft = left;
+        uprightTop = top;
+        break;
+    }
+    return new AnalysisFrame(mCameraView, mScratchBuffers, mDirectBuffers, data, width, height,
+        mRotation, this, left, top, uprightLeft, uprightTop);
+  }
+
+  /**
+   * @return The horizontal position of this frame within the upright frame it was cropped from,
+   * to add to the coordinates detectors report on it.
+   */
+  public int getUprightLeft() {
+    return mUprightLeft;
+  }
+
+  /**
+   * @return The vertical position of this frame within the upright frame it was cropped from.
+   */
+  public int getUprightTop() {
+    return mUprightTop;
+  }
+
+  public int getWidth() {
+    return mWidth;
+  }
+
+  public int getHeight() {
+    return mHeight;
+  }
+
+  public int getRotation() {
+    return mRotation;
+  }
+
+  public void retain() {
+    if (mParent != null) {
+      mParent.retain();
+      return;
+    }
+    synchronized (this) {
+      mReferences++;
+    }
+    mCameraView.retainFrameBuffer(mData);
+  }
+
+  public void release() {
+    if (mParent != null) {
+      mParent.release();
+      return;
+    }
+    synchronized (this) {
+      if (--mReferences == 0) {
+        recycleDerivedData();
+      }
+    }
+    // releasing the camera buffer may hand it back to the camera, don't hold the frame lock meanwhile
+    mCameraView.releaseFrameBuffer(mData);
+  }
+
+  private synchronized void recycleDerivedData() {
+    if (mInvertedData != null) {
+      mScratchBuffers.recycle(mInvertedData);
+      mInvertedData = null;
+    }
+    if (mDirectData != null) {
+      mDirectBuffers.recycle(mDirectData);
+      mDirectData = null;
+    }
+    if (mDirectInvertedData != null) {
+      mDirectBuffers.recycle(mDirectInvertedData);
+      mDirectInvertedData = null;
+    }
+    for (AnalysisFrame crop : mCrops) {
+      crop.recycleDerivedData();
+      mScratchBuffers.recycle(crop.mData);
+    }
+    mCrops.clear();
+  }
+}
@@ -0,0 +1,78 @@
+package org.reactnative.camera.utils;
+
+import com.google.zxing.BarcodeFormat;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Decides which variants of a frame the ZXing scanner tries, and in which order.
+ *
+ * Variants that decoded something recently are tried first. Variants that haven't are only
+ * probed every few frames, so frames without any barcode cost a single decode most of the time.
+ * Rotated variants are skipped altogether when every configured format is found in any
+ * orientation anyway.
+ */
+public class BarCodeDecodeStrategy {
+  public static final int VARIANT_NORMAL = 0;
+  public static final int VARIANT_ROTATED = 1;
+  public static final int VARIANT_INVERTED = 2;
+  public static final int VARIANT_INVERTED_ROTATED = 3;
+  public static final int VARIANT_COUNT = 4;
+
+  // Formats whose detectors locate codes in any orientation
+  private static final Set<BarcodeFormat> ROTATION_INVARIANT_FORMATS = EnumSet.of(
+      BarcodeFormat.QR_CODE, BarcodeFormat.DATA_MATRIX, BarcodeFormat.AZTEC);
+
+  // A hit keeps a variant hot for about 60 frames
+  private static final float SCORE_DECAY = 0.95f;
+  private static final float HOT_SCORE = 0.05f;
+  private static final float MAX_SCORE = 3f;
+  // Every this many frames all enabled variants are tried, to notice when a cold one starts to hit
+  private static final int PROBE_INTERVAL = 5;
+
+  private final float[] mScores = new float[VARIANT_COUNT];
+  private boolean mSkipRotation = false;
+  private int mFrameCount = 0;
+
+  public synchronized void setBarCodeFormats(Set<BarcodeFormat> formats) {
+    mSkipRotation = !formats.isEmpty() && ROTATION_INVARIANT_FORMATS.containsAll(formats);
+  }
+
+  /**
+   * @param attempts Receives the variants to try on the next frame, most promising first.
+   *                 Must hold at least {@link #VARIANT_COUNT} entries.
+   * @return The number of variants to try.
+   */
+  public synchronized int nextAttempts(int[] attempts) {
+    boolean probe = ++mFrameCount % PROBE_INTERVAL == 0;
+    int count = 0;
+    for (int variant = 0; variant < VARIANT_COUNT; variant++) {
+      mScores[variant] *= SCORE_DECAY;
+      if (mSkipRotation && (variant == VARIANT_ROTATED || variant == VARIANT_INVERTED_ROTATED)) {
+        continue;
+      }
+      if (probe || mScores[variant] >= HOT_SCORE) {
+        attempts[count++] = variant;
+      }
+    }
+    if (count == 0) {
+      attempts[count++] = VARIANT_NORMAL;
+    }
+    // insertion sort by score, keeping the default order among equals
+    for (int i = 1; i < count; i++) {
+      int variant = attempts[i];
+      int j = i - 1;
+      while (j >= 0 && mScores[attempts[j]] < mScores[variant]) {
+        attempts[j + 1] = attempts[j];
+        j--;
+      }
+      attempts[j + 1] = variant;
+    }
+    return count;
+  }
+
+  public synchronized void onDecoded(int variant) {
+    mScores[variant] = Math.min(mScores[variant] + 1f, MAX_SCORE);
+  }
+}
@@ -0,0 +1,52 @@
+package org.reactnative.camera.utils;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Keeps a few direct buffers for frames handed to native detectors, which would otherwise copy
+ * heap arrays into native memory of their own for every frame.
+ */
+public class DirectBufferPool {
+  private static final int DEFAULT_CAPACITY = 4;
+
+  private final ArrayDeque<ByteBuffer> mBuffers = new ArrayDeque<>();
+  private final int mCapacity;
+
+  public DirectBufferPool() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public DirectBufferPool(int capacity) {
+    mCapacity = capacity;
+  }
+
+  /**
+   * @return A cleared direct buffer with a capacity of exactly {@code size} bytes and undefined content.
+   */
+  public synchronized ByteBuffer obtain(int size) {
+    Iterator<ByteBuffer> iterator = mBuffers.iterator();
+    while (iterator.hasNext()) {
+      ByteBuffer buffer = iterator.next();
+      if (buffer.capacity() == size) {
+        iterator.remove();
+        buffer.clear();
+        return buffer;
+      }
+    }
+    return ByteBuffer.allocateDirect(size);
+  }
+
+  public synchronized void recycle(ByteBuffer buffer) {
+    if (mBuffers.size() >= mCapacity) {
+      // evict the oldest one, it most likely has a size that is not asked for anymore
+      mBuffers.pollFirst();
+    }
+    mBuffers.offerLast(buffer);
+  }
+
+  public synchronized void clear() {
+    mBuffers.clear();
+  }
+}
@@ -0,0 +1,209 @@
+package org.reactnative.camera.utils;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Puts EXIF data into a JPEG as it is written, instead of writing the file first and having
+ * {@link ExifInterface#saveAttributes()} rewrite all of it a second time.
+ *
+ * ExifInterface only saves to files, so the EXIF is edited in a stub JPEG holding nothing but
+ * the EXIF segment, a few kilobytes at most. The edited segment is then spliced into the real
+ * output right after its start of image marker, replacing any EXIF segment the output had.
+ * The stub has no frame header to take the image size from, so the size is passed in.
+ */
+public class ExifSplicer {
+  private static final int MARKER = 0xFF;
+  private static final int SOI = 0xD8;
+  private static final int EOI = 0xD9;
+  private static final int SOS = 0xDA;
+  private static final int APP1 = 0xE1;
+  private static final byte[] EXIF_IDENTIFIER = {'E', 'x', 'i', 'f', 0, 0};
+
+  public interface Editor {
+    void edit(ExifInterface exifInterface);
+  }
+
+  private ExifSplicer() {
+  }
+
+  /**
+   * @param jpeg             The JPEG to start from the EXIF of, or null to start without any.
+   * @param width            The width of the image the segment goes with, written over the
+   *                         dimension tags after the editor ran, or 0 to leave them to the editor.
+   * @param height           The height of the image the segment goes with.
+   * @param scratchDirectory Where to keep the stub JPEG while it is edited.
+   * @return The edited EXIF segment, marker included.
+   */
+  public static byte[] buildSegment(byte[] jpeg, int width, int height, File scratchDirectory, Editor editor) throws IOException {
+    int[] exif = jpeg != null ? findExifSegment(jpeg) : null;
+    File stub = new File(RNFileUtils.getOutputFilePath(scratchDirectory, ".jpg"));
+    try {
+      OutputStream outputStream = new FileOutputStream(stub);
+      try {
+        outputStream.write(new byte[]{(byte) MARKER, (byte) SOI});
+        if (exif != null) {
+          outputStream.write(jpeg, exif[0], exif[1] - exif[0]);
+        }
+        outputStream.write(new byte[]{(byte) MARKER, (byte) EOI});
+      } finally {
+        outputStream.close();
+      }
+
+      ExifInterface exifInterface = new ExifInterface(stub.getAbsolutePath());
+      editor.edit(exifInterface);
+      if (width > 0 && height > 0) {
+        exifInterface.setAttribute(ExifInterface.TAG_IMAGE_WIDTH, Integer.toString(width));
+        exifInterface.setAttribute(ExifInterface.TAG_IMAGE_LENGTH, Integer.toString(height));
+        exifInterface.setAttribute(ExifInterface.TAG_PIXEL_X_DIMENSION, Integer.toString(width));
+        exifInterface.setAttribute(ExifInterface.TAG_PIXEL_Y_DIMENSION, Integer.toString(height));
+      }
+      exifInterface.saveAttributes();
+
+      byte[] edited = readFile(stub);
+      int[] segment = findExifSegment(edited);
+      if (segment == null) {
+        throw new IOException("No EXIF segment was written");
+      }
+      return Arrays.copyOfRange(edited, segment[0], segment[1]);
+    } finally {
+      stub.delete();
+    }
+  }
+
+  /**
+   * Writes the JPEG with the given EXIF segment in place of its own.
+   */
+  public static void writeJpeg(byte[] jpeg, byte[] segment, OutputStream outputStream) throws IOException {
+    if (jpeg.length < 2 || (jpeg[0] & 0xFF) != MARKER || (jpeg[1] & 0xFF) != SOI) {
+      throw new IOException("Not a JPEG");
+    }
+    outputStream.write(jpeg, 0, 2);
+    outputStream.write(segment);
+    int position = 2;
+    while (true) {
+      int end = getSegmentEnd(jpeg, position);
+      if (end < 0) {
+        // the entropy coded data and whatever follows it go as they are
+        outputStream.write(jpeg, position, jpeg.length - position);
+        return;
+      }
+      if (!isExifSegment(jpeg, position, end)) {
+        outputStream.write(jpeg, position, end - position);
+      }
+      position = end;
+    }
+  }
+
+  /**
+   * Wraps a stream a JPEG without EXIF is about to be written to, such as the output of
+   * {@link android.graphics.Bitmap#compress}, so that the segment follows its start of image marker.
+   */
+  public static OutputStream insertSegment(OutputStream outputStream, final byte[] segment) {
+    return new FilterOutputStream(outputStream) {
+      private int mWritten = 0;
+
+      @Override
+      public void write(int b) throws IOException {
+        out.write(b);
+        if (mWritten < 2 && ++mWritten == 2) {
+          out.write(segment);
+        }
+      }
+
+      @Override
+      public void write(byte[] b, int off, int len) throws IOException {
+        if (mWritten < 2 && len > 0) {
+          int head = Math.min(2 - mWritten, len);
+          for (int i = 0; i < head; i++) {
+            write(b[off + i]);
+          }
+          off += head;
+          len -= head;
+        }
+        out.write(b, off, len);
+      }
+    };
+  }
+
+  private static int[] findExifSegment(byte[] jpeg) throws IOException {
+    if (jpeg.length < 2 || (jpeg[0] & 0xFF) != MARKER || (jpeg[1] & 0xFF) != SOI) {
+      throw new IOException("Not a JPEG");
+    }
+    int position = 2;
+    int end;
+    while ((end = getSegmentEnd(jpeg, position)) >= 0) {
+      if (isExifSegment(jpeg, position, end)) {
+        return new int[]{position, end};
+      }
+      position = end;
+    }
+    return null;
+  }
+
+  /**
+   * @return The end of the marker segment starting at {@code position}, or -1 once the image
+   * data starts.
+   */
+  private static int getSegmentEnd(byte[] jpeg, int position) throws IOException {
+    // markers may be preceded by any number of fill bytes
+    while (position + 1 < jpeg.length && (jpeg[position + 1] & 0xFF) == MARKER) {
+      position++;
+    }
+    if (position + 1 >= jpeg.length || (jpeg[position] & 0xFF) != MARKER) {
+      throw new IOException("Invalid JPEG marker");
+    }
+    int marker = jpeg[position + 1] & 0xFF;
+    if (marker == SOS || marker == EOI) {
+      return -1;
+    }
+    if (position + 4 > jpeg.length) {
+      throw new IOException("Truncated JPEG segment");
+    }
+    int end = position + 2 + (((jpeg[position + 2] & 0xFF) << 8) | (jpeg[position + 3] & 0xFF));
+    if (end > jpeg.length) {
+      throw new IOException("Truncated JPEG segment");
+    }
+    return end;
+  }
+
+  private static boolean isExifSegment(byte[] jpeg, int start, int end) {
+    // fill bytes ahead of the marker belong to the segment
+    while ((jpeg[start + 1] & 0xFF) == MARKER) {
+      start++;
+    }
+    if ((jpeg[start + 1] & 0xFF) != APP1 || end - start < 4 + EXIF_IDENTIFIER.length) {
+      return false;
+    }
+    for (int i = 0; i < EXIF_IDENTIFIER.length; i++) {
+      if (jpeg[start + 4 + i] != EXIF_IDENTIFIER[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static byte[] readFile(File file) throws IOException {
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream((int) file.length());
+    InputStream inputStream = new FileInputStream(file);
+    try {
+      byte[] buffer = new byte[4096];
+      int read;
+      while ((read = inputStream.read(buffer)) != -1) {
+        outputStream.write(buffer, 0, read);
+      }
+    } finally {
+      inputStream.close();
+    }
+    return outputStream.toByteArray();
+  }
+}
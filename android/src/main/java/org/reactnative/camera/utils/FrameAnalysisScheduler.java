@@ -0,0 +1,159 @@
+package org.reactnative.camera.utils;
+
+import android.os.Process;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the camera view's background tasks on dedicated, bounded worker lanes instead of the
+ * process wide AsyncTask pools, so scanners don't queue up behind each other, behind picture
+ * saving or behind other libraries.
+ *
+ * Every analyzer gets its own lane, pictures are resolved on a separate I/O lane.
+ * Analyzer lanes have a single thread: an analyzer only ever has one frame in flight and its
+ * reader or detector isn't meant to be shared between threads.
+ */
+public class FrameAnalysisScheduler {
+  public static final int LANE_BAR_CODE_SCANNER = 0;
+  public static final int LANE_FACE_DETECTOR = 1;
+  public static final int LANE_GOOGLE_BARCODE_DETECTOR = 2;
+  public static final int LANE_TEXT_RECOGNIZER = 3;
+  public static final int LANE_PICTURE = 4;
+
+  private static final String[] LANE_NAMES = {
+      "barCodeScanner", "faceDetector", "googleBarcodeDetector", "textRecognizer", "picture"
+  };
+
+  private static final int KEEP_ALIVE_SECONDS = 30;
+  private static final int DEFAULT_THREAD_COUNT = 1;
+  private static final int DEFAULT_PRIORITY = Process.THREAD_PRIORITY_BACKGROUND;
+
+  private final Lane[] mLanes = new Lane[LANE_NAMES.length];
+
+  public FrameAnalysisScheduler() {
+    for (int i = 0; i < mLanes.length; i++) {
+      // Analyzer tasks are rejected after shutdown with a RejectedExecutionException, so that the
+      // submitter can let go of the frame. Pictures must always be resolved, so they fall back to
+      // the calling thread instead.
+      RejectedExecutionHandler rejectionHandler = i == LANE_PICTURE
+          ? new ThreadPoolExecutor.CallerRunsPolicy()
+          : new ThreadPoolExecutor.AbortPolicy();
+      mLanes[i] = new Lane(LANE_NAMES[i], DEFAULT_THREAD_COUNT, DEFAULT_PRIORITY, rejectionHandler);
+    }
+  }
+
+  /**
+   * @return The lane index for a lane name, or -1 if there is no such lane.
+   */
+  public static int getLane(String name) {
+    for (int i = 0; i < LANE_NAMES.length; i++) {
+      if (LANE_NAMES[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * @return The executor of the lane. Once the scheduler is shut down, analyzer lanes throw
+   * {@link RejectedExecutionException} for new work.
+   */
+  public Executor getExecutor(int lane) {
+    return mLanes[lane].mExecutor;
+  }
+
+  /**
+   * Sets the number of pictures resolved at the same time.
+   */
+  public void setPictureThreadCount(int threadCount) {
+    mLanes[LANE_PICTURE].setThreadCount(Math.max(threadCount, 1));
+  }
+
+  /**
+   * @param priority Linux thread priority, see {@link Process#setThreadPriority(int)}.
+   */
+  public void setThreadPriority(int lane, int priority) {
+    mLanes[lane].mPriority = Math.max(Process.THREAD_PRIORITY_URGENT_AUDIO, Math.min(priority, Process.THREAD_PRIORITY_LOWEST));
+  }
+
+  /**
+   * Puts every lane back to a single thread at background priority.
+   */
+  public void resetLanes() {
+    for (Lane lane : mLanes) {
+      lane.mPriority = DEFAULT_PRIORITY;
+    }
+    mLanes[LANE_PICTURE].setThreadCount(DEFAULT_THREAD_COUNT);
+  }
+
+  /**
+   * Lets queued work finish and stops every lane from accepting new work.
+   */
+  public void shutdown() {
+    for (Lane lane : mLanes) {
+      lane.mExecutor.shutdown();
+    }
+  }
+
+  /**
+   * AsyncTask drops its worker to background priority right before doInBackground.
+   * Tasks call this first thing to run with the priority configured for their lane.
+   */
+  public static void applyLanePriority() {
+    Thread thread = Thread.currentThread();
+    if (thread instanceof LaneThread) {
+      Process.setThreadPriority(((LaneThread) thread).mLane.mPriority);
+    }
+  }
+
+  private static class Lane implements ThreadFactory {
+    private final String mName;
+    private final ThreadPoolExecutor mExecutor;
+    private volatile int mPriority;
+    private int mThreadNumber = 0;
+
+    Lane(String name, int threadCount, int priority, RejectedExecutionHandler rejectionHandler) {
+      mName = name;
+      mPriority = priority;
+      mExecutor = new ThreadPoolExecutor(threadCount, threadCount, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+          new LinkedBlockingQueue<Runnable>(), this, rejectionHandler);
+      mExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    synchronized void setThreadCount(int threadCount) {
+      if (threadCount > mExecutor.getMaximumPoolSize()) {
+        mExecutor.setMaximumPoolSize(threadCount);
+        mExecutor.setCorePoolSize(threadCount);
+      } else {
+        mExecutor.setCorePoolSize(threadCount);
+        mExecutor.setMaximumPoolSize(threadCount);
+      }
+    }
+
+    @Override
+    public synchronized Thread newThread(Runnable runnable) {
+      return new LaneThread(this, runnable, "RNCamera-" + mName + "-" + (++mThreadNumber));
+    }
+  }
+
+  private static class LaneThread extends Thread {
+    private final Lane mLane;
+
+    LaneThread(Lane lane, Runnable runnable, String name) {
+      super(runnable, name);
+      mLane = lane;
+    }
+
+    @Override
+    public void run() {
+      Process.setThreadPriority(mLane.mPriority);
+      super.run();
+    }
+  }
+}
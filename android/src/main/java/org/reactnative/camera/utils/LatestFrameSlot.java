@@ -0,0 +1,119 @@
+package org.reactnative.camera.utils;
+
+/**
+ * Feeds frames to a single analyzer, one at a time.
+ *
+ * Frames offered while the analyzer is busy are parked, replacing any frame that was parked
+ * before, so that as soon as the analyzer finishes it continues with the most recent frame
+ * instead of waiting for the camera to deliver the next one.
+ *
+ * An analyzer whose results aren't needed at the camera frame rate can be given a maximum rate,
+ * frames offered sooner than that after the previous accepted one are turned away.
+ */
+public class LatestFrameSlot {
+  private AnalysisFrame mRunningFrame;
+  private AnalysisFrame mPendingFrame;
+  private boolean mBlocked = false;
+  private long mAnalyzedCount = 0;
+  private long mDroppedCount = 0;
+  private long mThrottledCount = 0;
+  private long mMinIntervalNanos = 0;
+  private long mLastAcceptedNanos;
+  private boolean mAccepted = false;
+
+  /**
+   * @param framesPerSecond The highest rate at which the analyzer gets frames, 0 for no limit.
+   */
+  public synchronized void setMaxRate(float framesPerSecond) {
+    mMinIntervalNanos = framesPerSecond > 0 ? (long) (1e9 / framesPerSecond) : 0;
+  }
+
+  /**
+   * @return {@code true} if the analyzer is idle and should start on the frame right away,
+   * {@code false} if the frame was parked, dropped or throttled.
+   */
+  public synchronized boolean offer(AnalysisFrame frame) {
+    if (mBlocked) {
+      mDroppedCount++;
+      return false;
+    }
+    if (mMinIntervalNanos > 0) {
+      long now = System.nanoTime();
+      if (mAccepted && now - mLastAcceptedNanos < mMinIntervalNanos) {
+        mThrottledCount++;
+        return false;
+      }
+      mLastAcceptedNanos = now;
+      mAccepted = true;
+    }
+    frame.retain();
+    if (mRunningFrame == null) {
+      mRunningFrame = frame;
+      mAnalyzedCount++;
+      return true;
+    }
+    if (mPendingFrame != null) {
+      mPendingFrame.release();
+      mDroppedCount++;
+    }
+    mPendingFrame = frame;
+    return false;
+  }
+
+  /**
+   * Releases the frame the analyzer worked on.
+   *
+   * @return The parked frame the analyzer should continue with, or null if it is idle now.
+   */
+  public synchronized AnalysisFrame finish() {
+    if (mRunningFrame != null) {
+      mRunningFrame.release();
+    }
+    mRunningFrame = mPendingFrame;
+    mPendingFrame = null;
+    if (mRunningFrame != null) {
+      mAnalyzedCount++;
+    }
+    return mRunningFrame;
+  }
+
+  /**
+   * Drops the parked frame, if any. Used when the analyzer gets disabled.
+   */
+  public synchronized void clear() {
+    if (mPendingFrame != null) {
+      mPendingFrame.release();
+      mPendingFrame = null;
+      mDroppedCount++;
+    }
+  }
+
+  /**
+   * Releases every frame and stops accepting new ones until {@link #reset()},
+   * for analyzers that can't process frames anymore.
+   */
+  public synchronized void block() {
+    if (mRunningFrame != null) {
+      mRunningFrame.release();
+      mRunningFrame = null;
+    }
+    clear();
+    mBlocked = true;
+  }
+
+  public synchronized void reset() {
+    mBlocked = false;
+  }
+
+  public synchronized long getAnalyzedCount() {
+    return mAnalyzedCount;
+  }
+
+  public synchronized long getDroppedCount() {
+    return mDroppedCount;
+  }
+
+  public synchronized long getThrottledCount() {
+    return mThrottledCount;
+  }
+}
@@ -0,0 +1,847 @@
+package org.reactnative.camera.utils;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+/**
+ * Rotates JPEG data by quarter turns without decoding the pixels, like jpegtran does. The DCT
+ * coefficient blocks are moved to their rotated place, transposed or sign flipped as needed, and
+ * entropy coded again with the original Huffman tables. The result decodes to the rotated picture
+ * with no generation loss, in a fraction of the time and memory of a bitmap round trip.
+ *
+ * Only what cameras produce is supported: baseline Huffman coded 8 bit data in a single scan.
+ * The picture edge that becomes the top or the left one must end on an MCU boundary, as a
+ * partial MCU can't be moved there. {@link #rotate(byte[], int)} returns null for anything else
+ * so that the caller can fall back to decoding the picture.
+ *
+ * The EXIF orientation of the result is set to normal and the EXIF pixel dimensions follow the
+ * rotation. The EXIF thumbnail is kept as it is. Data after the end of the picture, such as the
+ * secondary images of a multi-picture file, is indexed by offsets the rotation would break, so
+ * pictures carrying any are not rotated either.
+ */
+public class LosslessJpegRotation {
+  private static final int SOI = 0xD8;
+  private static final int EOI = 0xD9;
+  private static final int SOS = 0xDA;
+  private static final int DQT = 0xDB;
+  private static final int DRI = 0xDD;
+  private static final int DHT = 0xC4;
+  private static final int SOF0 = 0xC0;
+  private static final int SOF1 = 0xC1;
+  private static final int APP1 = 0xE1;
+
+  // natural order index of each zigzag position
+  private static final int[] ZIGZAG = {
+      0, 1, 8, 16, 9, 2, 3, 10,
+      17, 24, 32, 25, 18, 11, 4, 5,
+      12, 19, 26, 33, 40, 48, 41, 34,
+      27, 20, 13, 6, 7, 14, 21, 28,
+      35, 42, 49, 56, 57, 50, 43, 36,
+      29, 22, 15, 23, 30, 37, 44, 51,
+      58, 59, 52, 45, 38, 31, 39, 46,
+      53, 60, 61, 54, 47, 55, 62, 63
+  };
+  // zigzag position of each natural order index
+  private static final int[] NATURAL_TO_ZIGZAG = new int[64];
+
+  static {
+    for (int i = 0; i < 64; i++) {
+      NATURAL_TO_ZIGZAG[ZIGZAG[i]] = i;
+    }
+  }
+
+  private LosslessJpegRotation() {
+  }
+
+  /**
+   * @param jpeg    The JPEG data, left untouched.
+   * @param degrees The clockwise rotation, 90, 180 or 270.
+   * @return The rotated JPEG data, or null if the data can't be rotated losslessly.
+   */
+  public static byte[] rotate(byte[] jpeg, int degrees) {
+    if (degrees != 90 && degrees != 180 && degrees != 270) {
+      return null;
+    }
+    try {
+      return new Transcoder(jpeg, degrees).transcode();
+    } catch (UnsupportedJpegException e) {
+      return null;
+    } catch (ArrayIndexOutOfBoundsException e) {
+      // truncated or corrupt data
+      return null;
+    }
+  }
+
+  private static class UnsupportedJpegException extends Exception {
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedJpegException(String message) {
+      super(message);
+    }
+  }
+
+  private static class Component {
+    int id;
+    int h;
+    int v;
+    int dcTable;
+    int acTable;
+    int blocksWide;
+    int blocksHigh;
+    short[] coefficients;
+  }
+
+  private static class HuffmanTable {
+    // decoding: per code length, the largest code, and the offset from codes to symbol indices
+    final int[] maxCode = new int[18];
+    final int[] valueOffset = new int[17];
+    final int[] symbols = new int[256];
+    // decoding shortcut for codes of up to LOOKUP_BITS bits: (length << 8) | symbol, 0 if longer
+    final int[] lookup = new int[1 << LOOKUP_BITS];
+    // encoding: code and length of each symbol, length 0 for symbols without a code
+    final int[] codes = new int[256];
+    final int[] lengths = new int[256];
+
+    static final int LOOKUP_BITS = 9;
+
+    HuffmanTable(byte[] data, int countsOffset) throws UnsupportedJpegException {
+      int symbolIndex = 0;
+      int code = 0;
+      int symbolsOffset = countsOffset + 16;
+      for (int length = 1; length <= 16; length++) {
+        int count = data[countsOffset + length - 1] & 0xFF;
+        valueOffset[length] = symbolIndex - code;
+        for (int i = 0; i < count; i++, symbolIndex++, code++) {
+          if (symbolIndex >= 256) {
+            throw new UnsupportedJpegException("Too many Huffman symbols");
+          }
+          int symbol = data[symbolsOffset + symbolIndex] & 0xFF;
+          symbols[symbolIndex] = symbol;
+          codes[symbol] = code;
+          lengths[symbol] = length;
+          if (length <= LOOKUP_BITS) {
+            int shift = LOOKUP_BITS - length;
+            for (int fill = 0; fill < (1 << shift); fill++) {
+              lookup[(code << shift) | fill] = (length << 8) | symbol;
+            }
+          }
+        }
+        maxCode[length] = count > 0 ? code - 1 : -1;
+        code <<= 1;
+      }
+      maxCode[17] = Integer.MAX_VALUE;
+    }
+
+    static int size(byte[] data, int countsOffset) {
+      int total = 0;
+      for (int i = 0; i < 16; i++) {
+        total += data[countsOffset + i] & 0xFF;
+      }
+      return 16 + total;
+    }
+  }
+
+  private static class Transcoder {
+    private final byte[] mData;
+    private final int mDegrees;
+    private final HuffmanTable[] mDcTables = new HuffmanTable[4];
+    private final HuffmanTable[] mAcTables = new HuffmanTable[4];
+    private Component[] mComponents;
+    private int mWidth;
+    private int mHeight;
+    private int mMaxH;
+    private int mMaxV;
+    private int mRestartInterval = 0;
+    private int mScanStart = -1;
+    private int mScanHeaderStart;
+    // DQT and SOF segments are rewritten, APP1 patched, DRI dropped, the rest is copied as is
+    private int mSofStart;
+
+    Transcoder(byte[] data, int degrees) {
+      mData = data;
+      mDegrees = degrees;
+    }
+
+    byte[] transcode() throws UnsupportedJpegException {
+      if (mData.length < 4 || (mData[0] & 0xFF) != 0xFF || (mData[1] & 0xFF) != SOI) {
+        throw new UnsupportedJpegException("Not a JPEG");
+      }
+      ByteArrayOutputStream out = new ByteArrayOutputStream(mData.length);
+      out.write(0xFF);
+      out.write(SOI);
+      int pos = 2;
+      while (mScanStart < 0) {
+        while ((mData[pos] & 0xFF) == 0xFF && (mData[pos + 1] & 0xFF) == 0xFF) {
+          pos++;
+        }
+        if ((mData[pos] & 0xFF) != 0xFF) {
+          throw new UnsupportedJpegException("Marker expected");
+        }
+        int marker = mData[pos + 1] & 0xFF;
+        int length = readShort(pos + 2);
+        int start = pos + 4;
+        int end = pos + 2 + length;
+        if (end > mData.length) {
+          throw new UnsupportedJpegException("Truncated segment");
+        }
+        switch (marker) {
+          case SOF0:
+          case SOF1:
+            readFrame(start);
+            mSofStart = pos;
+            break;
+          case DHT:
+            readHuffmanTables(start, end);
+            out.write(mData, pos, end - pos);
+            break;
+          case DQT:
+            writeQuantizationTables(out, pos, start, end);
+            break;
+          case DRI:
+            mRestartInterval = readShort(start);
+            break;
+          case SOS:
+            mScanHeaderStart = pos;
+            mScanStart = end;
+            break;
+          case APP1:
+            byte[] segment = Arrays.copyOfRange(mData, pos, end);
+            // keeping the original orientation on rotated pixels would rotate the picture twice
+            if (isExif(segment, 4, segment.length) && !patchExif(segment, 4, segment.length, mDegrees != 180)) {
+              throw new UnsupportedJpegException("EXIF orientation can't be updated");
+            }
+            out.write(segment, 0, segment.length);
+            break;
+          default:
+            // progressive, lossless, hierarchical and arithmetic coded frames, and DNL
+            if ((marker >= 0xC2 && marker <= 0xCF) || marker == 0xDC) {
+              throw new UnsupportedJpegException("Unsupported frame type");
+            }
+            out.write(mData, pos, end - pos);
+            break;
+        }
+        pos = end;
+      }
+      if (mComponents == null) {
+        throw new UnsupportedJpegException("No frame header");
+      }
+      readScanHeader(mScanHeaderStart + 4);
+      checkAlignment();
+      int scanEnd = decodeScan();
+      if (scanEnd < 0) {
+        throw new UnsupportedJpegException("Scan not terminated");
+      }
+      if ((mData[scanEnd + 1] & 0xFF) != EOI) {
+        throw new UnsupportedJpegException("More than one scan");
+      }
+      if (!isPadding(scanEnd + 2)) {
+        throw new UnsupportedJpegException("Data after the end of the picture");
+      }
+      // the rotated frame goes right before the scan, restart markers are not written again
+      writeFrame(out);
+      out.write(mData, mScanHeaderStart, mScanStart - mScanHeaderStart);
+      encodeScan(out);
+      out.write(0xFF);
+      out.write(EOI);
+      return out.toByteArray();
+    }
+
+    private int readShort(int pos) {
+      return ((mData[pos] & 0xFF) << 8) | (mData[pos + 1] & 0xFF);
+    }
+
+    private boolean isPadding(int pos) {
+      for (; pos < mData.length; pos++) {
+        int b = mData[pos] & 0xFF;
+        if (b != 0 && b != 0xFF) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private void readFrame(int pos) throws UnsupportedJpegException {
+      if ((mData[pos] & 0xFF) != 8) {
+        throw new UnsupportedJpegException("Only 8 bit samples are supported");
+      }
+      mHeight = readShort(pos + 1);
+      mWidth = readShort(pos + 3);
+      int count = mData[pos + 5] & 0xFF;
+      if (mWidth == 0 || mHeight == 0 || count == 0 || count > 4) {
+        throw new UnsupportedJpegException("Unsupported frame");
+      }
+      mComponents = new Component[count];
+      for (int i = 0; i < count; i++) {
+        Component component = new Component();
+        int offset = pos + 6 + 3 * i;
+        component.id = mData[offset] & 0xFF;
+        component.h = (mData[offset + 1] & 0xFF) >> 4;
+        component.v = mData[offset + 1] & 0x0F;
+        if (component.h < 1 || component.h > 4 || component.v < 1 || component.v > 4) {
+          throw new UnsupportedJpegException("Bad sampling factors");
+        }
+        mComponents[i] = component;
+      }
+      if (count == 1) {
+        // a single component is coded block by block whatever its sampling factors
+        mComponents[0].h = 1;
+        mComponents[0].v = 1;
+      }
+      for (Component component : mComponents) {
+        mMaxH = Math.max(mMaxH, component.h);
+        mMaxV = Math.max(mMaxV, component.v);
+      }
+      int mcusWide = (mWidth + 8 * mMaxH - 1) / (8 * mMaxH);
+      int mcusHigh = (mHeight + 8 * mMaxV - 1) / (8 * mMaxV);
+      for (Component component : mComponents) {
+        component.blocksWide = mcusWide * component.h;
+        component.blocksHigh = mcusHigh * component.v;
+      }
+    }
+
+    private void readHuffmanTables(int pos, int end) throws UnsupportedJpegException {
+      while (pos < end) {
+        int info = mData[pos] & 0xFF;
+        int tableClass = info >> 4;
+        int index = info & 0x0F;
+        if (index > 3 || tableClass > 1) {
+          throw new UnsupportedJpegException("Bad Huffman table");
+        }
+        HuffmanTable table = new HuffmanTable(mData, pos + 1);
+        if (tableClass == 0) {
+          mDcTables[index] = table;
+        } else {
+          mAcTables[index] = table;
+        }
+        pos += 1 + HuffmanTable.size(mData, pos + 1);
+      }
+    }
+
+    /**
+     * Quarter turns transpose the coefficient blocks, so the quantization tables get transposed
+     * along with them.
+     */
+    private void writeQuantizationTables(ByteArrayOutputStream out, int segmentStart, int pos, int end)
+        throws UnsupportedJpegException {
+      if (mDegrees == 180) {
+        out.write(mData, segmentStart, end - segmentStart);
+        return;
+      }
+      byte[] segment = new byte[end - segmentStart];
+      System.arraycopy(mData, segmentStart, segment, 0, segment.length);
+      while (pos < end) {
+        int precision = (mData[pos] & 0xFF) >> 4;
+        int entrySize = precision == 0 ? 1 : 2;
+        int tableStart = pos + 1;
+        for (int zigzag = 0; zigzag < 64; zigzag++) {
+          int natural = ZIGZAG[zigzag];
+          int transposed = NATURAL_TO_ZIGZAG[(natural % 8) * 8 + natural / 8];
+          for (int b = 0; b < entrySize; b++) {
+            segment[tableStart - segmentStart + transposed * entrySize + b] = mData[tableStart + zigzag * entrySize + b];
+          }
+        }
+        pos = tableStart + 64 * entrySize;
+      }
+      if (pos != end) {
+        throw new UnsupportedJpegException("Bad quantization table");
+      }
+      out.write(segment, 0, segment.length);
+    }
+
+    private void readScanHeader(int pos) throws UnsupportedJpegException {
+      int count = mData[pos] & 0xFF;
+      if (count != mComponents.length) {
+        throw new UnsupportedJpegException("Only single scan pictures are supported");
+      }
+      Component[] scanOrder = new Component[count];
+      for (int i = 0; i < count; i++) {
+        int id = mData[pos + 1 + 2 * i] & 0xFF;
+        int tables = mData[pos + 2 + 2 * i] & 0xFF;
+        Component component = null;
+        for (Component candidate : mComponents) {
+          if (candidate.id == id) {
+            component = candidate;
+          }
+        }
+        if (component == null) {
+          throw new UnsupportedJpegException("Unknown scan component");
+        }
+        component.dcTable = tables >> 4;
+        component.acTable = tables & 0x0F;
+        if (component.dcTable > 3 || component.acTable > 3
+            || mDcTables[component.dcTable] == null || mAcTables[component.acTable] == null) {
+          throw new UnsupportedJpegException("Missing Huffman table");
+        }
+        scanOrder[i] = component;
+      }
+      int spectral = pos + 1 + 2 * count;
+      if ((mData[spectral] & 0xFF) != 0 || (mData[spectral + 1] & 0xFF) != 63 || (mData[spectral + 2] & 0xFF) != 0) {
+        throw new UnsupportedJpegException("Progressive scans are not supported");
+      }
+      mComponents = scanOrder;
+    }
+
+    /**
+     * The edge that ends up at the top or left must be made of whole MCUs.
+     */
+    private void checkAlignment() throws UnsupportedJpegException {
+      boolean widthAligned = mWidth % (8 * mMaxH) == 0;
+      boolean heightAligned = mHeight % (8 * mMaxV) == 0;
+      boolean aligned;
+      switch (mDegrees) {
+        case 90:
+          aligned = heightAligned;
+          break;
+        case 270:
+          aligned = widthAligned;
+          break;
+        default:
+          aligned = widthAligned && heightAligned;
+          break;
+      }
+      if (!aligned) {
+        throw new UnsupportedJpegException("Partial MCUs can't be rotated losslessly");
+      }
+    }
+
+    /**
+     * @return The position right after the scan data, or -1 if the data ended without a marker.
+     */
+    private int decodeScan() throws UnsupportedJpegException {
+      for (Component component : mComponents) {
+        component.coefficients = new short[component.blocksWide * component.blocksHigh * 64];
+      }
+      BitReader reader = new BitReader(mData, mScanStart);
+      int[] predictions = new int[mComponents.length];
+      int mcusWide = mComponents[0].blocksWide / mComponents[0].h;
+      int mcusHigh = mComponents[0].blocksHigh / mComponents[0].v;
+      int mcu = 0;
+      for (int mcuY = 0; mcuY < mcusHigh; mcuY++) {
+        for (int mcuX = 0; mcuX < mcusWide; mcuX++, mcu++) {
+          if (mRestartInterval > 0 && mcu > 0 && mcu % mRestartInterval == 0) {
+            reader.restart();
+            for (int i = 0; i < predictions.length; i++) {
+              predictions[i] = 0;
+            }
+          }
+          for (int c = 0; c < mComponents.length; c++) {
+            Component component = mComponents[c];
+            for (int v = 0; v < component.v; v++) {
+              for (int h = 0; h < component.h; h++) {
+                int block = (mcuY * component.v + v) * component.blocksWide + mcuX * component.h + h;
+                predictions[c] = decodeBlock(reader, component, block * 64, predictions[c]);
+              }
+            }
+          }
+        }
+      }
+      return reader.end();
+    }
+
+    private int decodeBlock(BitReader reader, Component component, int offset, int prediction)
+        throws UnsupportedJpegException {
+      short[] coefficients = component.coefficients;
+      int size = reader.decode(mDcTables[component.dcTable]);
+      int dc = prediction + (size == 0 ? 0 : extend(reader.read(size), size));
+      coefficients[offset] = (short) dc;
+      HuffmanTable ac = mAcTables[component.acTable];
+      for (int k = 1; k < 64; k++) {
+        int symbol = reader.decode(ac);
+        int run = symbol >> 4;
+        size = symbol & 0x0F;
+        if (size == 0) {
+          if (run != 15) {
+            break;
+          }
+          k += 15;
+          continue;
+        }
+        k += run;
+        if (k > 63) {
+          throw new UnsupportedJpegException("Corrupt block");
+        }
+        coefficients[offset + ZIGZAG[k]] = (short) extend(reader.read(size), size);
+      }
+      return dc;
+    }
+
+    private void writeFrame(ByteArrayOutputStream out) {
+      int length = readShort(mSofStart + 2);
+      byte[] segment = new byte[length + 2];
+      System.arraycopy(mData, mSofStart, segment, 0, segment.length);
+      if (mDegrees != 180) {
+        // the picture and every component swap their width and height
+        segment[5] = mData[mSofStart + 7];
+        segment[6] = mData[mSofStart + 8];
+        segment[7] = mData[mSofStart + 5];
+        segment[8] = mData[mSofStart + 6];
+        int count = mData[mSofStart + 9] & 0xFF;
+        for (int i = 0; i < count; i++) {
+          int factors = mData[mSofStart + 11 + 3 * i] & 0xFF;
+          segment[11 + 3 * i] = (byte) (((factors & 0x0F) << 4) | (factors >> 4));
+        }
+      }
+      out.write(segment, 0, segment.length);
+    }
+
+    private void encodeScan(ByteArrayOutputStream out) throws UnsupportedJpegException {
+      boolean quarterTurn = mDegrees != 180;
+      int maxH = quarterTurn ? mMaxV : mMaxH;
+      int maxV = quarterTurn ? mMaxH : mMaxV;
+      int width = quarterTurn ? mHeight : mWidth;
+      int height = quarterTurn ? mWidth : mHeight;
+      int mcusWide = (width + 8 * maxH - 1) / (8 * maxH);
+      int mcusHigh = (height + 8 * maxV - 1) / (8 * maxV);
+      BitWriter writer = new BitWriter(out);
+      int[] predictions = new int[mComponents.length];
+      short[] block = new short[64];
+      for (int mcuY = 0; mcuY < mcusHigh; mcuY++) {
+        for (int mcuX = 0; mcuX < mcusWide; mcuX++) {
+          for (int c = 0; c < mComponents.length; c++) {
+            Component component = mComponents[c];
+            int h = quarterTurn ? component.v : component.h;
+            int v = quarterTurn ? component.h : component.v;
+            for (int y = 0; y < v; y++) {
+              for (int x = 0; x < h; x++) {
+                transformBlock(component, mcuX * h + x, mcuY * v + y, block);
+                predictions[c] = encodeBlock(writer, component, block, predictions[c]);
+              }
+            }
+          }
+        }
+      }
+      writer.flush();
+    }
+
+    /**
+     * Fills {@code block} with the coefficients of the block at {@code (x, y)} of the rotated
+     * component, in natural order.
+     */
+    private void transformBlock(Component component, int x, int y, short[] block) {
+      short[] coefficients = component.coefficients;
+      int source;
+      switch (mDegrees) {
+        case 90:
+          source = ((component.blocksHigh - 1 - x) * component.blocksWide + y) * 64;
+          // transpose, then mirror horizontally
+          for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+              short value = coefficients[source + column * 8 + row];
+              block[row * 8 + column] = (column & 1) == 0 ? value : (short) -value;
+            }
+          }
+          break;
+        case 270:
+          source = (x * component.blocksWide + component.blocksWide - 1 - y) * 64;
+          // transpose, then mirror vertically
+          for (int row = 0; row < 8; row++) {
+            for (int column = 0; column < 8; column++) {
+              short value = coefficients[source + column * 8 + row];
+              block[row * 8 + column] = (row & 1) == 0 ? value : (short) -value;
+            }
+          }
+          break;
+        default:
+          source = ((component.blocksHigh - 1 - y) * component.blocksWide + component.blocksWide - 1 - x) * 64;
+          // mirror both ways
+          for (int i = 0; i < 64; i++) {
+            short value = coefficients[source + i];
+            block[i] = (((i >> 3) + i) & 1) == 0 ? value : (short) -value;
+          }
+          break;
+      }
+    }
+
+    private int encodeBlock(BitWriter writer, Component component, short[] block, int prediction)
+        throws UnsupportedJpegException {
+      int dc = block[0];
+      writeValue(writer, mDcTables[component.dcTable], 0, dc - prediction);
+      HuffmanTable ac = mAcTables[component.acTable];
+      int run = 0;
+      for (int k = 1; k < 64; k++) {
+        int value = block[ZIGZAG[k]];
+        if (value == 0) {
+          run++;
+          continue;
+        }
+        while (run > 15) {
+          writeSymbol(writer, ac, 0xF0);
+          run -= 16;
+        }
+        writeValue(writer, ac, run, value);
+        run = 0;
+      }
+      if (run > 0) {
+        writeSymbol(writer, ac, 0x00);
+      }
+      return dc;
+    }
+
+    private static void writeValue(BitWriter writer, HuffmanTable table, int run, int value)
+        throws UnsupportedJpegException {
+      int magnitude = value < 0 ? -value : value;
+      int size = magnitude == 0 ? 0 : 32 - Integer.numberOfLeadingZeros(magnitude);
+      writeSymbol(writer, table, (run << 4) | size);
+      if (size > 0) {
+        writer.write(value < 0 ? value - 1 : value, size);
+      }
+    }
+
+    private static void writeSymbol(BitWriter writer, HuffmanTable table, int symbol)
+        throws UnsupportedJpegException {
+      int length = table.lengths[symbol];
+      if (length == 0) {
+        throw new UnsupportedJpegException("Huffman table lacks a code for the rotated data");
+      }
+      writer.write(table.codes[symbol], length);
+    }
+
+    private static int extend(int bits, int size) {
+      return bits < (1 << (size - 1)) ? bits - (1 << size) + 1 : bits;
+    }
+  }
+
+  private static boolean isExif(byte[] data, int start, int end) {
+    return end - start >= 14 && data[start] == 'E' && data[start + 1] == 'x' && data[start + 2] == 'i'
+        && data[start + 3] == 'f' && data[start + 4] == 0 && data[start + 5] == 0;
+  }
+
+  /**
+   * Sets the EXIF orientation of an APP1 segment to normal and, for quarter turns, swaps the
+   * EXIF pixel dimensions. Done in place, the segment keeps its size.
+   *
+   * @param start          The start of the segment data, after the length.
+   * @param swapDimensions Whether the rotation is a quarter turn.
+   * @return Whether the orientation was updated.
+   */
+  private static boolean patchExif(byte[] data, int start, int end, boolean swapDimensions) {
+    Tiff tiff = new Tiff(data, start + 6, end);
+    if (!tiff.isValid()) {
+      return false;
+    }
+    int ifd0 = tiff.readInt(tiff.mStart + 4);
+    int orientation = tiff.findEntry(ifd0, 0x0112);
+    if (orientation < 0 || tiff.readShort(orientation + 2) != 3) {
+      return false;
+    }
+    // a single SHORT is stored left justified in the value field
+    tiff.writeShort(orientation + 8, 1);
+    if (!swapDimensions) {
+      return true;
+    }
+    int width = tiff.findEntry(ifd0, 0x0100);
+    int height = tiff.findEntry(ifd0, 0x0101);
+    tiff.swapEntryValues(width, height);
+    int exifPointer = tiff.findEntry(ifd0, 0x8769);
+    if (exifPointer >= 0) {
+      int exifIfd = tiff.readInt(exifPointer + 8);
+      tiff.swapEntryValues(tiff.findEntry(exifIfd, 0xA002), tiff.findEntry(exifIfd, 0xA003));
+    }
+    return true;
+  }
+
+  private static class Tiff {
+    private final byte[] mData;
+    private final int mStart;
+    private final int mEnd;
+    private final boolean mLittleEndian;
+
+    Tiff(byte[] data, int start, int end) {
+      mData = data;
+      mStart = start;
+      mEnd = end;
+      mLittleEndian = data[start] == 'I' && data[start + 1] == 'I';
+    }
+
+    boolean isValid() {
+      boolean bigEndian = mData[mStart] == 'M' && mData[mStart + 1] == 'M';
+      return (mLittleEndian || bigEndian) && mEnd - mStart >= 8;
+    }
+
+    int readShort(int pos) {
+      int a = mData[pos] & 0xFF;
+      int b = mData[pos + 1] & 0xFF;
+      return mLittleEndian ? (b << 8) | a : (a << 8) | b;
+    }
+
+    int readInt(int pos) {
+      int high = readShort(mLittleEndian ? pos + 2 : pos);
+      int low = readShort(mLittleEndian ? pos : pos + 2);
+      return (high << 16) | low;
+    }
+
+    void writeShort(int pos, int value) {
+      mData[pos + (mLittleEndian ? 0 : 1)] = (byte) value;
+      mData[pos + (mLittleEndian ? 1 : 0)] = (byte) (value >> 8);
+    }
+
+    /**
+     * @param ifd The offset of the directory from the TIFF header.
+     * @return The absolute position of the entry, or -1.
+     */
+    int findEntry(int ifd, int tag) {
+      int pos = mStart + ifd;
+      if (ifd < 8 || pos + 2 > mEnd) {
+        return -1;
+      }
+      int count = readShort(pos);
+      for (int i = 0; i < count; i++) {
+        int entry = pos + 2 + 12 * i;
+        if (entry + 12 > mEnd) {
+          return -1;
+        }
+        if (readShort(entry) == tag) {
+          return entry;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Swaps the type, count and value of two entries, keeping their tags.
+     */
+    void swapEntryValues(int first, int second) {
+      if (first < 0 || second < 0) {
+        return;
+      }
+      for (int i = 2; i < 12; i++) {
+        byte swapped = mData[first + i];
+        mData[first + i] = mData[second + i];
+        mData[second + i] = swapped;
+      }
+    }
+  }
+
+  /**
+   * Reads entropy coded bits, skipping stuffed zero bytes. Once a marker is reached it reads
+   * zeros, as decoders do.
+   */
+  private static class BitReader {
+    private final byte[] mData;
+    private int mPos;
+    private long mBits;
+    private int mBitCount;
+    private boolean mMarkerReached = false;
+
+    BitReader(byte[] data, int pos) {
+      mData = data;
+      mPos = pos;
+    }
+
+    private void fill() {
+      while (mBitCount <= 48) {
+        int next = 0;
+        if (!mMarkerReached && mPos < mData.length) {
+          next = mData[mPos] & 0xFF;
+          if (next == 0xFF) {
+            int following = mPos + 1 < mData.length ? mData[mPos + 1] & 0xFF : EOI;
+            if (following == 0) {
+              mPos += 2;
+            } else {
+              mMarkerReached = true;
+              next = 0;
+            }
+          } else {
+            mPos++;
+          }
+        }
+        mBits = (mBits << 8) | next;
+        mBitCount += 8;
+      }
+    }
+
+    int read(int count) {
+      if (mBitCount < count) {
+        fill();
+      }
+      mBitCount -= count;
+      return (int) (mBits >>> mBitCount) & ((1 << count) - 1);
+    }
+
+    int decode(HuffmanTable table) throws UnsupportedJpegException {
+      if (mBitCount < 16) {
+        fill();
+      }
+      int peek = (int) (mBits >>> (mBitCount - HuffmanTable.LOOKUP_BITS)) & ((1 << HuffmanTable.LOOKUP_BITS) - 1);
+      int entry = table.lookup[peek];
+      if (entry != 0) {
+        mBitCount -= entry >> 8;
+        return entry & 0xFF;
+      }
+      int code = read(HuffmanTable.LOOKUP_BITS);
+      int length = HuffmanTable.LOOKUP_BITS;
+      while (code > table.maxCode[length]) {
+        if (length == 16) {
+          throw new UnsupportedJpegException("Bad Huffman code");
+        }
+        code = (code << 1) | read(1);
+        length++;
+      }
+      return table.symbols[code + table.valueOffset[length]];
+    }
+
+    /**
+     * Skips to the data after the next restart marker.
+     */
+    void restart() throws UnsupportedJpegException {
+      int pos = mPos;
+      while (pos + 1 < mData.length && !((mData[pos] & 0xFF) == 0xFF && (mData[pos + 1] & 0xFF) >= 0xD0
+          && (mData[pos + 1] & 0xFF) <= 0xD7)) {
+        pos++;
+      }
+      if (pos + 1 >= mData.length) {
+        throw new UnsupportedJpegException("Restart marker missing");
+      }
+      mPos = pos + 2;
+      mBits = 0;
+      mBitCount = 0;
+      mMarkerReached = false;
+    }
+
+    /**
+     * @return The position of the marker that ends the scan, or -1 if the data ran out.
+     */
+    int end() {
+      int pos = mPos;
+      while (pos + 1 < mData.length) {
+        int next = mData[pos + 1] & 0xFF;
+        // a restart marker some encoders leave after the last interval still belongs to the scan
+        if ((mData[pos] & 0xFF) == 0xFF && next != 0 && next != 0xFF && (next < 0xD0 || next > 0xD7)) {
+          return pos;
+        }
+        pos++;
+      }
+      return -1;
+    }
+  }
+
+  private static class BitWriter {
+    private final ByteArrayOutputStream mOut;
+    private int mBits;
+    private int mBitCount;
+
+    BitWriter(ByteArrayOutputStream out) {
+      mOut = out;
+    }
+
+    void write(int bits, int count) {
+      mBits = (mBits << count) | (bits & ((1 << count) - 1));
+      mBitCount += count;
+      while (mBitCount >= 8) {
+        mBitCount -= 8;
+        int value = (mBits >> mBitCount) & 0xFF;
+        mOut.write(value);
+        if (value == 0xFF) {
+          mOut.write(0);
+        }
+      }
+    }
+
+    void flush() {
+      if (mBitCount > 0) {
+        // pad with ones
+        write(0x7F, 8 - mBitCount);
+      }
+    }
+  }
+}
@@ -0,0 +1,109 @@
+package org.reactnative.camera.utils;
+
+/**
+ * Tells frames showing a still scene apart from frames where something moved, so that analyzers
+ * don't decode the same picture over and over.
+ *
+ * Each frame is downsampled to a 32x32 grid of average luminances and compared with the grid of
+ * the last frame let through by the sum of absolute differences. Averaging over whole cells
+ * evens out sensor noise, so small threshold values already tell still scenes apart. Comparing
+ * with the last frame let through rather than the previous one lets slow changes add up until
+ * they pass. A still scene still gets a frame through every so often, so analyzers enabled in
+ * the meantime get to see it.
+ *
+ * Nothing is allocated per frame, the grids are kept from one frame to the next.
+ */
+public class MotionGate {
+  public static final float DEFAULT_THRESHOLD = 2f;
+
+  private static final int GRID_SIZE = 32;
+  // only every other pixel of every other row goes into a cell average, plenty for a 32x32 grid
+  private static final int SAMPLE_STEP = 2;
+  private static final long MAX_STILL_NANOS = 1000000000L;
+
+  private int[] mReference = new int[GRID_SIZE * GRID_SIZE];
+  private int[] mGrid = new int[GRID_SIZE * GRID_SIZE];
+  private int mWidth;
+  private int mHeight;
+  private boolean mHasReference = false;
+  private long mReferenceNanos;
+  private float mThreshold = DEFAULT_THRESHOLD;
+  private long mStillCount = 0;
+
+  /**
+   * @param threshold Average absolute luminance difference per grid cell, from 0 to 255, above
+   *                  which a frame counts as changed.
+   */
+  public synchronized void setThreshold(float threshold) {
+    mThreshold = Math.max(0, threshold);
+  }
+
+  public synchronized float getThreshold() {
+    return mThreshold;
+  }
+
+  /**
+   * @param luminance A frame starting with its {@code width} by {@code height} luminance plane.
+   * @return Whether the frame differs enough from the last frame let through to be analyzed.
+   */
+  public synchronized boolean hasChanged(byte[] luminance, int width, int height) {
+    if (width < GRID_SIZE * SAMPLE_STEP || height < GRID_SIZE * SAMPLE_STEP) {
+      return true;
+    }
+    downsample(luminance, width, height, mGrid);
+    long now = System.nanoTime();
+    if (mHasReference && width == mWidth && height == mHeight && now - mReferenceNanos < MAX_STILL_NANOS) {
+      int difference = 0;
+      for (int i = 0; i < mGrid.length; i++) {
+        difference += Math.abs(mGrid[i] - mReference[i]);
+      }
+      if (difference <= mThreshold * mGrid.length) {
+        mStillCount++;
+        return false;
+      }
+    }
+    // the grid of this frame becomes the reference, the old reference is overwritten next time
+    int[] reference = mReference;
+    mReference = mGrid;
+    mGrid = reference;
+    mWidth = width;
+    mHeight = height;
+    mReferenceNanos = now;
+    mHasReference = true;
+    return true;
+  }
+
+  /**
+   * Forgets the last frame let through, so the next frame passes.
+   */
+  public synchronized void reset() {
+    mHasReference = false;
+  }
+
+  /**
+   * @return The number of frames held back because nothing moved.
+   */
+  public synchronized long getStillCount() {
+    return mStillCount;
+  }
+
+  private static void downsample(byte[] luminance, int width, int height, int[] grid) {
+    for (int gridRow = 0; gridRow < GRID_SIZE; gridRow++) {
+      int top = gridRow * height / GRID_SIZE;
+      int bottom = (gridRow + 1) * height / GRID_SIZE;
+      for (int gridColumn = 0; gridColumn < GRID_SIZE; gridColumn++) {
+        int left = gridColumn * width / GRID_SIZE;
+        int right = (gridColumn + 1) * width / GRID_SIZE;
+        int sum = 0;
+        int count = 0;
+        for (int y = top; y < bottom; y += SAMPLE_STEP) {
+          for (int offset = y * width + left, end = y * width + right; offset < end; offset += SAMPLE_STEP) {
+            sum += luminance[offset] & 0xFF;
+            count++;
+          }
+        }
+        grid[gridRow * GRID_SIZE + gridColumn] = sum / count;
+      }
+    }
+  }
+}
@@ -0,0 +1,209 @@
+package org.reactnative.camera.utils;
+
+import com.google.zxing.LuminanceSource;
+
+/**
+ * A luminance source over the Y plane of an NV21 frame that crops, rotates and inverts by
+ * changing how the plane is read instead of copying it. Pixels are only transformed when ZXing
+ * asks for a row or the matrix, and only for the visible region.
+ */
+public class NV21LuminanceSource extends LuminanceSource {
+  private final byte[] mYData;
+  private final int mDataWidth;
+  private final int mDataHeight;
+  // visible region of the Y plane, in the orientation of the frame
+  private final int mLeft;
+  private final int mTop;
+  private final int mRegionWidth;
+  private final int mRegionHeight;
+  // quarter turns counter clockwise applied on top of the region
+  private final int mRotation;
+  private final boolean mInverted;
+
+  public NV21LuminanceSource(byte[] yData, int dataWidth, int dataHeight) {
+    this(yData, dataWidth, dataHeight, 0, 0, dataWidth, dataHeight, 0, false);
+  }
+
+  private NV21LuminanceSource(byte[] yData, int dataWidth, int dataHeight, int left, int top,
+                              int regionWidth, int regionHeight, int rotation, boolean inverted) {
+    super(rotation % 2 == 0 ? regionWidth : regionHeight, rotation % 2 == 0 ? regionHeight : regionWidth);
+    if (left < 0 || top < 0 || left + regionWidth > dataWidth || top + regionHeight > dataHeight) {
+      throw new IllegalArgumentException("Crop rectangle does not fit within image data.");
+    }
+    mYData = yData;
+    mDataWidth = dataWidth;
+    mDataHeight = dataHeight;
+    mLeft = left;
+    mTop = top;
+    mRegionWidth = regionWidth;
+    mRegionHeight = regionHeight;
+    mRotation = rotation;
+    mInverted = inverted;
+  }
+
+  @Override
+  public byte[] getRow(int y, byte[] row) {
+    if (y < 0 || y >= getHeight()) {
+      throw new IllegalArgumentException("Requested row is outside the image: " + y);
+    }
+    int width = getWidth();
+    if (row == null || row.length < width) {
+      row = new byte[width];
+    }
+    int offset;
+    int step;
+    switch (mRotation) {
+      case 0:
+        offset = (mTop + y) * mDataWidth + mLeft;
+        step = 1;
+        break;
+      case 1:
+        // column (regionWidth - 1 - y) of the region, top down
+        offset = mTop * mDataWidth + mLeft + mRegionWidth - 1 - y;
+        step = mDataWidth;
+        break;
+      case 2:
+        // row (regionHeight - 1 - y) of the region, right to left
+        offset = (mTop + mRegionHeight - 1 - y) * mDataWidth + mLeft + mRegionWidth - 1;
+        step = -1;
+        break;
+      default:
+        // column y of the region, bottom up
+        offset = (mTop + mRegionHeight - 1) * mDataWidth + mLeft + y;
+        step = -mDataWidth;
+        break;
+    }
+    if (step == 1) {
+      System.arraycopy(mYData, offset, row, 0, width);
+    } else {
+      for (int x = 0; x < width; x++) {
+        row[x] = mYData[offset];
+        offset += step;
+      }
+    }
+    if (mInverted) {
+      invert(row, width);
+    }
+    return row;
+  }
+
+  @Override
+  public byte[] getMatrix() {
+    return getMatrix(null);
+  }
+
+  /**
+   * Same as {@link #getMatrix()}, but writes into {@code matrix} if the pixels need to be copied.
+   *
+   * @param matrix A buffer of at least {@code getWidth() * getHeight()} bytes, or null.
+   */
+  public byte[] getMatrix(byte[] matrix) {
+    int width = getWidth();
+    int height = getHeight();
+    if (mRotation == 0 && !mInverted && mLeft == 0 && mTop == 0 && width == mDataWidth && height == mDataHeight) {
+      // only the first width * height bytes are read
+      return mYData;
+    }
+    if (matrix == null || matrix.length < width * height) {
+      matrix = new byte[width * height];
+    }
+    switch (mRotation) {
+      case 0:
+        for (int y = 0; y < height; y++) {
+          System.arraycopy(mYData, (mTop + y) * mDataWidth + mLeft, matrix, y * width, width);
+        }
+        break;
+      case 1:
+        LuminanceRotation.rotateCounterClockwise(mYData, mDataWidth, mLeft, mTop, mRegionWidth, mRegionHeight, matrix);
+        break;
+      case 2:
+        for (int y = 0; y < height; y++) {
+          int in = (mTop + mRegionHeight - 1 - y) * mDataWidth + mLeft + mRegionWidth - 1;
+          int out = y * width;
+          for (int x = 0; x < width; x++) {
+            matrix[out++] = mYData[in--];
+          }
+        }
+        break;
+      default:
+        LuminanceRotation.rotateClockwise(mYData, mDataWidth, mLeft, mTop, mRegionWidth, mRegionHeight, matrix);
+        break;
+    }
+    if (mInverted) {
+      invert(matrix, width * height);
+    }
+    return matrix;
+  }
+
+  @Override
+  public boolean isCropSupported() {
+    return true;
+  }
+
+  @Override
+  public NV21LuminanceSource crop(int left, int top, int width, int height) {
+    int regionLeft;
+    int regionTop;
+    int regionWidth;
+    int regionHeight;
+    switch (mRotation) {
+      case 0:
+        regionLeft = left;
+        regionTop = top;
+        regionWidth = width;
+        regionHeight = height;
+        break;
+      case 1:
+        regionLeft = mRegionWidth - top - height;
+        regionTop = left;
+        regionWidth = height;
+        regionHeight = width;
+        break;
+      case 2:
+        regionLeft = mRegionWidth - left - width;
+        regionTop = mRegionHeight - top - height;
+        regionWidth = width;
+        regionHeight = height;
+        break;
+      default:
+        regionLeft = top;
+        regionTop = mRegionHeight - left - width;
+        regionWidth = height;
+        regionHeight = width;
+        break;
+    }
+    return new NV21LuminanceSource(mYData, mDataWidth, mDataHeight, mLeft + regionLeft, mTop + regionTop,
+        regionWidth, regionHeight, mRotation, mInverted);
+  }
+
+  @Override
+  public boolean isRotateSupported() {
+    return true;
+  }
+
+  @Override
+  public NV21LuminanceSource rotateCounterClockwise() {
+    return new NV21LuminanceSource(mYData, mDataWidth, mDataHeight, mLeft, mTop,
+        mRegionWidth, mRegionHeight, (mRotation + 1) % 4, mInverted);
+  }
+
+  /**
+   * Same as three {@link #rotateCounterClockwise()} turns.
+   */
+  public NV21LuminanceSource rotateClockwise() {
+    return new NV21LuminanceSource(mYData, mDataWidth, mDataHeight, mLeft, mTop,
+        mRegionWidth, mRegionHeight, (mRotation + 3) % 4, mInverted);
+  }
+
+  @Override
+  public NV21LuminanceSource invert() {
+    return new NV21LuminanceSource(mYData, mDataWidth, mDataHeight, mLeft, mTop,
+        mRegionWidth, mRegionHeight, mRotation, !mInverted);
+  }
+
+  private static void invert(byte[] data, int length) {
+    for (int i = 0; i < length; i++) {
+      data[i] = (byte) ~data[i];
+    }
+  }
+}
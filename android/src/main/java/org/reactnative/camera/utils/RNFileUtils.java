@@ -2,10 +2,13 @@ package org.reactnative.camera.utils;
 
 import android.content.Context;
 import android.net.Uri;
+import android.util.Base64;
 
 
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.UUID;
 
 /**
@@ -14,6 +17,9 @@ import java.util.UUID;
 
 public class RNFileUtils {
 
+    // a multiple of 3, so that no chunk but the last one needs base64 padding
+    private static final int BASE64_CHUNK_SIZE = 3 * 16 * 1024;
+
     public static File ensureDirExists(File dir) throws IOException {
         if (!(dir.isDirectory() || dir.mkdirs())) {
             throw new IOException("Couldn't create directory '" + dir + "'");
@@ -31,4 +37,31 @@ public class RNFileUtils {
         return Uri.fromFile(file);
     }
 
+    /**
+     * Encodes the file as base64 without wrapping, reading it a chunk at a time so that the file
+     * contents are never held in memory next to their encoding.
+     */
+    public static String readBase64(File file) throws IOException {
+        StringBuilder encoded = new StringBuilder((int) ((file.length() + 2) / 3 * 4));
+        byte[] chunk = new byte[BASE64_CHUNK_SIZE];
+        InputStream inputStream = new FileInputStream(file);
+        try {
+            int filled = 0;
+            int read;
+            while ((read = inputStream.read(chunk, filled, chunk.length - filled)) != -1) {
+                filled += read;
+                if (filled == chunk.length) {
+                    encoded.append(Base64.encodeToString(chunk, 0, filled, Base64.NO_WRAP));
+                    filled = 0;
+                }
+            }
+            if (filled > 0) {
+                encoded.append(Base64.encodeToString(chunk, 0, filled, Base64.NO_WRAP));
+            }
+        } finally {
+            inputStream.close();
+        }
+        return encoded.toString();
+    }
+
 }
@@ -0,0 +1,231 @@
+/*
+ * Copyright 2009 ZXing authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.reactnative.camera.utils;
+
+import com.google.zxing.Binarizer;
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.NotFoundException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.common.GlobalHistogramBinarizer;
+
+/**
+ * ZXing's {@link com.google.zxing.common.HybridBinarizer} algorithm, working in scratch memory
+ * kept per thread instead of allocating the luminance matrix, the black points and the bit
+ * matrix for every image.
+ *
+ * The bit matrix of an image stays valid until the same thread binarizes another image of the
+ * same size, which never happens while a single decode is still looking at it.
+ */
+public class ReusableHybridBinarizer extends GlobalHistogramBinarizer {
+  private static final int BLOCK_SIZE_POWER = 3;
+  private static final int BLOCK_SIZE = 1 << BLOCK_SIZE_POWER;
+  private static final int BLOCK_SIZE_MASK = BLOCK_SIZE - 1;
+  private static final int MINIMUM_DIMENSION = BLOCK_SIZE * 5;
+  private static final int MIN_DYNAMIC_RANGE = 24;
+
+  private static final ThreadLocal<Scratch> sScratch = new ThreadLocal<Scratch>() {
+    @Override
+    protected Scratch initialValue() {
+      return new Scratch();
+    }
+  };
+
+  private BitMatrix mMatrix;
+
+  public ReusableHybridBinarizer(LuminanceSource source) {
+    super(source);
+  }
+
+  @Override
+  public BitMatrix getBlackMatrix() throws NotFoundException {
+    if (mMatrix != null) {
+      return mMatrix;
+    }
+    LuminanceSource source = getLuminanceSource();
+    int width = source.getWidth();
+    int height = source.getHeight();
+    if (width >= MINIMUM_DIMENSION && height >= MINIMUM_DIMENSION) {
+      Scratch scratch = sScratch.get();
+      byte[] luminances = source instanceof NV21LuminanceSource
+          ? ((NV21LuminanceSource) source).getMatrix(scratch.obtainLuminances(width * height))
+          : source.getMatrix();
+      int subWidth = width >> BLOCK_SIZE_POWER;
+      if ((width & BLOCK_SIZE_MASK) != 0) {
+        subWidth++;
+      }
+      int subHeight = height >> BLOCK_SIZE_POWER;
+      if ((height & BLOCK_SIZE_MASK) != 0) {
+        subHeight++;
+      }
+      int[] blackPoints = scratch.obtainBlackPoints(subWidth * subHeight);
+      calculateBlackPoints(luminances, subWidth, subHeight, width, height, blackPoints);
+      BitMatrix matrix = scratch.obtainMatrix(width, height);
+      calculateThresholdForBlock(luminances, subWidth, subHeight, width, height, blackPoints, matrix);
+      mMatrix = matrix;
+    } else {
+      // too small for the local algorithm, fall back to the global histogram
+      mMatrix = super.getBlackMatrix();
+    }
+    return mMatrix;
+  }
+
+  @Override
+  public Binarizer createBinarizer(LuminanceSource source) {
+    return new ReusableHybridBinarizer(source);
+  }
+
+  /**
+   * For each block, averages the black points of the surrounding 5x5 blocks
+   * and thresholds the block with it.
+   */
+  private static void calculateThresholdForBlock(byte[] luminances, int subWidth, int subHeight, int width,
+                                                 int height, int[] blackPoints, BitMatrix matrix) {
+    int maxYOffset = height - BLOCK_SIZE;
+    int maxXOffset = width - BLOCK_SIZE;
+    for (int y = 0; y < subHeight; y++) {
+      int yoffset = y << BLOCK_SIZE_POWER;
+      if (yoffset > maxYOffset) {
+        yoffset = maxYOffset;
+      }
+      int top = cap(y, 2, subHeight - 3);
+      for (int x = 0; x < subWidth; x++) {
+        int xoffset = x << BLOCK_SIZE_POWER;
+        if (xoffset > maxXOffset) {
+          xoffset = maxXOffset;
+        }
+        int left = cap(x, 2, subWidth - 3);
+        int sum = 0;
+        for (int z = -2; z <= 2; z++) {
+          int row = (top + z) * subWidth + left;
+          sum += blackPoints[row - 2] + blackPoints[row - 1] + blackPoints[row] + blackPoints[row + 1] + blackPoints[row + 2];
+        }
+        int average = sum / 25;
+        thresholdBlock(luminances, xoffset, yoffset, average, width, matrix);
+      }
+    }
+  }
+
+  private static int cap(int value, int min, int max) {
+    return value < min ? min : value > max ? max : value;
+  }
+
+  private static void thresholdBlock(byte[] luminances, int xoffset, int yoffset, int threshold, int stride, BitMatrix matrix) {
+    for (int y = 0, offset = yoffset * stride + xoffset; y < BLOCK_SIZE; y++, offset += stride) {
+      for (int x = 0; x < BLOCK_SIZE; x++) {
+        // <= so that black == 0 pixels are black even if the threshold is 0
+        if ((luminances[offset + x] & 0xFF) <= threshold) {
+          matrix.set(xoffset + x, yoffset + y);
+        }
+      }
+    }
+  }
+
+  /**
+   * Estimates the black point of every 8x8 block, see
+   * {@link com.google.zxing.common.HybridBinarizer} for the reasoning behind the estimate.
+   */
+  private static void calculateBlackPoints(byte[] luminances, int subWidth, int subHeight, int width,
+                                           int height, int[] blackPoints) {
+    int maxYOffset = height - BLOCK_SIZE;
+    int maxXOffset = width - BLOCK_SIZE;
+    for (int y = 0; y < subHeight; y++) {
+      int yoffset = y << BLOCK_SIZE_POWER;
+      if (yoffset > maxYOffset) {
+        yoffset = maxYOffset;
+      }
+      for (int x = 0; x < subWidth; x++) {
+        int xoffset = x << BLOCK_SIZE_POWER;
+        if (xoffset > maxXOffset) {
+          xoffset = maxXOffset;
+        }
+        int sum = 0;
+        int min = 0xFF;
+        int max = 0;
+        for (int yy = 0, offset = yoffset * width + xoffset; yy < BLOCK_SIZE; yy++, offset += width) {
+          for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+            int pixel = luminances[offset + xx] & 0xFF;
+            sum += pixel;
+            if (pixel < min) {
+              min = pixel;
+            }
+            if (pixel > max) {
+              max = pixel;
+            }
+          }
+          // once the dynamic range is met, only the sum of the remaining rows is needed
+          if (max - min > MIN_DYNAMIC_RANGE) {
+            for (yy++, offset += width; yy < BLOCK_SIZE; yy++, offset += width) {
+              for (int xx = 0; xx < BLOCK_SIZE; xx++) {
+                sum += luminances[offset + xx] & 0xFF;
+              }
+            }
+          }
+        }
+
+        int average = sum >> (BLOCK_SIZE_POWER * 2);
+        if (max - min <= MIN_DYNAMIC_RANGE) {
+          // low contrast block, assume it is white unless the neighbors say otherwise
+          average = min / 2;
+          if (y > 0 && x > 0) {
+            int index = y * subWidth + x;
+            int averageNeighborBlackPoint =
+                (blackPoints[index - subWidth] + (2 * blackPoints[index - 1]) + blackPoints[index - subWidth - 1]) / 4;
+            if (min < averageNeighborBlackPoint) {
+              average = averageNeighborBlackPoint;
+            }
+          }
+        }
+        blackPoints[y * subWidth + x] = average;
+      }
+    }
+  }
+
+  private static class Scratch {
+    private byte[] mLuminances = new byte[0];
+    private int[] mBlackPoints = new int[0];
+    // an image and its rotation have swapped sizes, keep a matrix for each
+    private final BitMatrix[] mMatrices = new BitMatrix[2];
+    private int mNextMatrix = 0;
+
+    byte[] obtainLuminances(int size) {
+      if (mLuminances.length < size) {
+        mLuminances = new byte[size];
+      }
+      return mLuminances;
+    }
+
+    int[] obtainBlackPoints(int size) {
+      if (mBlackPoints.length < size) {
+        mBlackPoints = new int[size];
+      }
+      return mBlackPoints;
+    }
+
+    BitMatrix obtainMatrix(int width, int height) {
+      for (BitMatrix matrix : mMatrices) {
+        if (matrix != null && matrix.getWidth() == width && matrix.getHeight() == height) {
+          matrix.clear();
+          return matrix;
+        }
+      }
+      BitMatrix matrix = new BitMatrix(width, height);
+      mMatrices[mNextMatrix] = matrix;
+      mNextMatrix = (mNextMatrix + 1) % mMatrices.length;
+      return matrix;
+    }
+  }
+}
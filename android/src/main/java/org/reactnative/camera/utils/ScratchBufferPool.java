@@ -0,0 +1,50 @@
+package org.reactnative.camera.utils;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+
+/**
+ * Keeps a few byte arrays for data derived from preview frames, so analyzing a steady stream of
+ * frames does not allocate new arrays for every frame.
+ */
+public class ScratchBufferPool {
+  private static final int DEFAULT_CAPACITY = 4;
+
+  private final ArrayDeque<byte[]> mBuffers = new ArrayDeque<>();
+  private final int mCapacity;
+
+  public ScratchBufferPool() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  public ScratchBufferPool(int capacity) {
+    mCapacity = capacity;
+  }
+
+  /**
+   * @return An array of exactly {@code size} bytes with undefined content.
+   */
+  public synchronized byte[] obtain(int size) {
+    Iterator<byte[]> iterator = mBuffers.iterator();
+    while (iterator.hasNext()) {
+      byte[] buffer = iterator.next();
+      if (buffer.length == size) {
+        iterator.remove();
+        return buffer;
+      }
+    }
+    return new byte[size];
+  }
+
+  public synchronized void recycle(byte[] buffer) {
+    if (mBuffers.size() >= mCapacity) {
+      // evict the oldest one, it most likely has a size that is not asked for anymore
+      mBuffers.pollFirst();
+    }
+    mBuffers.offerLast(buffer);
+  }
+
+  public synchronized void clear() {
+    mBuffers.clear();
+  }
+}
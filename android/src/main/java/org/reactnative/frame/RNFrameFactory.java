@@ -10,10 +10,16 @@ import java.nio.ByteBuffer;
 
 public class RNFrameFactory {
   public static RNFrame buildFrame(byte[] bitmapData, int width, int height, int rotation) {
+    return buildFrame(ByteBuffer.wrap(bitmapData), width, height, rotation);
+  }
+
+  /**
+   * @param imageData NV21 data, preferably in a direct buffer which the detectors read in place.
+   */
+  public static RNFrame buildFrame(ByteBuffer imageData, int width, int height, int rotation) {
     Frame.Builder builder = new Frame.Builder();
 
-    ByteBuffer byteBuffer = ByteBuffer.wrap(bitmapData);
-    builder.setImageData(byteBuffer, width, height, ImageFormat.NV21);
+    builder.setImageData(imageData, width, height, ImageFormat.NV21);
 
     switch (rotation) {
       case 90:
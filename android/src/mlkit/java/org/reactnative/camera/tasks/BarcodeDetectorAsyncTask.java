@@ -7,8 +7,7 @@ import android.util.Log;
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.google.android.gms.tasks.OnFailureListener;
-import com.google.android.gms.tasks.OnSuccessListener;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.ml.vision.barcode.FirebaseVisionBarcode;
 import com.google.firebase.ml.vision.barcode.FirebaseVisionBarcodeDetector;
 import com.google.firebase.ml.vision.common.FirebaseVisionImage;
@@ -16,12 +15,22 @@ import com.google.firebase.ml.vision.common.FirebaseVisionImageMetadata;
 
 import org.reactnative.barcodedetector.BarcodeFormatUtils;
 import org.reactnative.barcodedetector.RNBarcodeDetector;
+import org.reactnative.camera.utils.AnalysisFrame;
 import org.reactnative.camera.utils.ImageDimensions;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
 
-public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void> {
+public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, List<FirebaseVisionBarcode>> {
 
+  private AnalysisFrame mFrame;
+  private Rect mRegionOfInterest;
+  private int mOffsetX;
+  private int mOffsetY;
+  private boolean mInvertImageData;
+  // the frame is only copied into mImageData for events that carry it
+  private boolean mIncludeImageData;
   private byte[] mImageData;
   private int mWidth;
   private int mHeight;
@@ -38,10 +47,10 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
   public BarcodeDetectorAsyncTask(
       BarcodeDetectorAsyncTaskDelegate delegate,
       RNBarcodeDetector barcodeDetector,
-      byte[] imageData,
-      int width,
-      int height,
-      int rotation,
+      AnalysisFrame frame,
+      Rect regionOfInterest,
+      boolean invertImageData,
+      boolean includeImageData,
       float density,
       int facing,
       int viewWidth,
@@ -49,13 +58,16 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
       int viewPaddingLeft,
       int viewPaddingTop
   ) {
-    mImageData = imageData;
-    mWidth = width;
-    mHeight = height;
-    mRotation = rotation;
+    mFrame = frame;
+    mRegionOfInterest = regionOfInterest;
+    mInvertImageData = invertImageData;
+    mIncludeImageData = includeImageData;
+    mWidth = frame.getWidth();
+    mHeight = frame.getHeight();
+    mRotation = frame.getRotation();
     mDelegate = delegate;
     mBarcodeDetector = barcodeDetector;
-    mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+    mImageDimensions = new ImageDimensions(mWidth, mHeight, mRotation, facing);
     mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
     mScaleY = 1 / density;
     mPaddingLeft = viewPaddingLeft;
@@ -63,37 +75,55 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
   }
 
   @Override
-  protected Void doInBackground(Void... ignored) {
+  protected List<FirebaseVisionBarcode> doInBackground(Void... ignored) {
+    FrameAnalysisScheduler.applyLanePriority();
     if (isCancelled() || mDelegate == null || mBarcodeDetector == null) {
       return null;
     }
 
+    // barcodes are looked for in the region only and reported in full frame coordinates
+    AnalysisFrame analyzed = mFrame.crop(mRegionOfInterest);
+    mOffsetX = analyzed.getUprightLeft();
+    mOffsetY = analyzed.getUprightTop();
     final FirebaseVisionImageMetadata metadata = new FirebaseVisionImageMetadata.Builder()
-            .setWidth(mWidth)
-            .setHeight(mHeight)
-            .setFormat(FirebaseVisionImageMetadata.IMAGE_FORMAT_YV12)
+            .setWidth(analyzed.getWidth())
+            .setHeight(analyzed.getHeight())
+            .setFormat(FirebaseVisionImageMetadata.IMAGE_FORMAT_NV21)
             .setRotation(getFirebaseRotation())
             .build();
-    FirebaseVisionImage image = FirebaseVisionImage.fromByteArray(mImageData, metadata);
+    FirebaseVisionImage image = FirebaseVisionImage.fromByteBuffer(analyzed.getDirectData(mInvertImageData), metadata);
 
     FirebaseVisionBarcodeDetector barcode = mBarcodeDetector.getDetector();
-    barcode.detectInImage(image)
-            .addOnSuccessListener(new OnSuccessListener<List<FirebaseVisionBarcode>>() {
-              @Override
-              public void onSuccess(List<FirebaseVisionBarcode> barcodes) {
-                WritableArray serializedBarcodes = serializeEventData(barcodes);
-                mDelegate.onBarcodesDetected(serializedBarcodes, mWidth, mHeight, mImageData);
-                mDelegate.onBarcodeDetectingTaskCompleted();
-              }
-            })
-            .addOnFailureListener(new OnFailureListener() {
-              @Override
-              public void onFailure(Exception e) {
-                Log.e(TAG, "Text recognition task failed" + e);
-                mDelegate.onBarcodeDetectingTaskCompleted();
-              }
-            });
-    return null;
+    List<FirebaseVisionBarcode> barcodes;
+    try {
+      // waited for on the lane, so the event image is taken here rather than on the main thread
+      // and the frame is only used while the lane still holds it
+      barcodes = Tasks.await(barcode.detectInImage(image));
+    } catch (ExecutionException e) {
+      Log.e(TAG, "Barcode detection task failed" + e.getCause());
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    if (!barcodes.isEmpty() && mIncludeImageData) {
+      mImageData = mInvertImageData ? mFrame.getInvertedData() : mFrame.getData();
+    }
+    return barcodes;
+  }
+
+  @Override
+  protected void onPostExecute(List<FirebaseVisionBarcode> barcodes) {
+    super.onPostExecute(barcodes);
+    if (mDelegate == null) {
+      return;
+    }
+
+    if (barcodes != null) {
+      WritableArray serializedBarcodes = serializeEventData(barcodes);
+      mDelegate.onBarcodesDetected(serializedBarcodes, mWidth, mHeight, mImageData);
+    }
+    mDelegate.onBarcodeDetectingTaskCompleted();
   }
 
   private int getFirebaseRotation(){
@@ -325,7 +355,10 @@ public class BarcodeDetectorAsyncTask extends android.os.AsyncTask<Void, Void, V
     return typeStringPhone;
   }
 
-  private WritableMap processBounds(Rect frame) {
+  private WritableMap processBounds(Rect detectedFrame) {
+    // bounds found on a crop are relative to it
+    Rect frame = new Rect(detectedFrame);
+    frame.offset(mOffsetX, mOffsetY);
     WritableMap origin = Arguments.createMap();
     int x = frame.left;
     int y = frame.top;
@@ -1,5 +1,6 @@
 package org.reactnative.camera.tasks;
 
+import android.graphics.Rect;
 import android.util.Log;
 
 import com.facebook.react.bridge.Arguments;
@@ -13,14 +14,19 @@ import com.google.firebase.ml.vision.common.FirebaseVisionImageMetadata;
 import com.google.firebase.ml.vision.face.FirebaseVisionFace;
 import com.google.firebase.ml.vision.face.FirebaseVisionFaceDetector;
 
+import org.reactnative.camera.utils.AnalysisFrame;
 import org.reactnative.camera.utils.ImageDimensions;
 import org.reactnative.facedetector.FaceDetectorUtils;
 import org.reactnative.facedetector.RNFaceDetector;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
 
 import java.util.List;
 
 public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void> {
-  private byte[] mImageData;
+  private AnalysisFrame mFrame;
+  private Rect mRegionOfInterest;
+  private int mOffsetX;
+  private int mOffsetY;
   private int mWidth;
   private int mHeight;
   private int mRotation;
@@ -36,10 +42,8 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
   public FaceDetectorAsyncTask(
       FaceDetectorAsyncTaskDelegate delegate,
       RNFaceDetector faceDetector,
-      byte[] imageData,
-      int width,
-      int height,
-      int rotation,
+      AnalysisFrame frame,
+      Rect regionOfInterest,
       float density,
       int facing,
       int viewWidth,
@@ -47,13 +51,14 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
       int viewPaddingLeft,
       int viewPaddingTop
   ) {
-    mImageData = imageData;
-    mWidth = width;
-    mHeight = height;
-    mRotation = rotation;
+    mFrame = frame;
+    mRegionOfInterest = regionOfInterest;
+    mWidth = frame.getWidth();
+    mHeight = frame.getHeight();
+    mRotation = frame.getRotation();
     mDelegate = delegate;
     mFaceDetector = faceDetector;
-    mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+    mImageDimensions = new ImageDimensions(mWidth, mHeight, mRotation, facing);
     mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
     mScaleY = (double) (viewHeight) / (mImageDimensions.getHeight() * density);
     mPaddingLeft = viewPaddingLeft;
@@ -62,16 +67,21 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
 
   @Override
   protected Void doInBackground(Void... ignored) {
+    FrameAnalysisScheduler.applyLanePriority();
     if (isCancelled() || mDelegate == null || mFaceDetector == null) {
       return null;
     }
+    // faces are looked for in the region only and reported in full frame coordinates
+    AnalysisFrame analyzed = mFrame.crop(mRegionOfInterest);
+    mOffsetX = analyzed.getUprightLeft();
+    mOffsetY = analyzed.getUprightTop();
     FirebaseVisionImageMetadata metadata = new FirebaseVisionImageMetadata.Builder()
-            .setWidth(mWidth)
-            .setHeight(mHeight)
-            .setFormat(FirebaseVisionImageMetadata.IMAGE_FORMAT_YV12)
+            .setWidth(analyzed.getWidth())
+            .setHeight(analyzed.getHeight())
+            .setFormat(FirebaseVisionImageMetadata.IMAGE_FORMAT_NV21)
             .setRotation(getFirebaseRotation())
             .build();
-    FirebaseVisionImage image = FirebaseVisionImage.fromByteArray(mImageData, metadata);
+    FirebaseVisionImage image = FirebaseVisionImage.fromByteBuffer(analyzed.getDirectData(false), metadata);
 
     FirebaseVisionFaceDetector detector = mFaceDetector.getDetector();
     detector.detectInImage(image)
@@ -124,7 +134,7 @@ public class FaceDetectorAsyncTask extends android.os.AsyncTask<Void, Void, Void
     WritableArray facesList = Arguments.createArray();
 
     for (FirebaseVisionFace face : faces) {
-      WritableMap serializedFace = FaceDetectorUtils.serializeFace(face, mScaleX, mScaleY, mWidth, mHeight, mPaddingLeft, mPaddingTop);
+      WritableMap serializedFace = FaceDetectorUtils.serializeFace(face, mScaleX, mScaleY, mWidth, mHeight, mPaddingLeft, mPaddingTop, mOffsetX, mOffsetY);
       if (mImageDimensions.getFacing() == CameraView.FACING_FRONT) {
         serializedFace = FaceDetectorUtils.rotateFaceX(serializedFace, mImageDimensions.getWidth(), mScaleX);
       } else {
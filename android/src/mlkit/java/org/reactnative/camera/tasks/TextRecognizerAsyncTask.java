@@ -8,18 +8,19 @@ import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.uimanager.ThemedReactContext;
 
 import com.google.android.cameraview.CameraView;
 import com.google.android.gms.tasks.OnFailureListener;
 import com.google.android.gms.tasks.OnSuccessListener;
-import com.google.firebase.ml.vision.FirebaseVision;
 import com.google.firebase.ml.vision.common.FirebaseVisionImage;
 import com.google.firebase.ml.vision.common.FirebaseVisionImageMetadata;
 import com.google.firebase.ml.vision.text.FirebaseVisionText;
 import com.google.firebase.ml.vision.text.FirebaseVisionTextRecognizer;
 
+import org.reactnative.camera.utils.AnalysisFrame;
 import org.reactnative.camera.utils.ImageDimensions;
+import org.reactnative.camera.utils.FrameAnalysisScheduler;
+import org.reactnative.textrecognizer.RNTextRecognizer;
 
 import java.util.List;
 
@@ -27,8 +28,11 @@ import java.util.List;
 public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Void> {
 
   private TextRecognizerAsyncTaskDelegate mDelegate;
-  private ThemedReactContext mThemedReactContext;
-  private byte[] mImageData;
+  private RNTextRecognizer mTextRecognizer;
+  private AnalysisFrame mFrame;
+  private Rect mRegionOfInterest;
+  private int mOffsetX;
+  private int mOffsetY;
   private int mWidth;
   private int mHeight;
   private int mRotation;
@@ -41,11 +45,9 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Vo
 
   public TextRecognizerAsyncTask(
       TextRecognizerAsyncTaskDelegate delegate,
-      ThemedReactContext themedReactContext,
-      byte[] imageData,
-      int width,
-      int height,
-      int rotation,
+      RNTextRecognizer textRecognizer,
+      AnalysisFrame frame,
+      Rect regionOfInterest,
       float density,
       int facing,
       int viewWidth,
@@ -54,11 +56,13 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Vo
       int viewPaddingTop
   ) {
     mDelegate = delegate;
-    mImageData = imageData;
-    mWidth = width;
-    mHeight = height;
-    mRotation = rotation;
-    mImageDimensions = new ImageDimensions(width, height, rotation, facing);
+    mTextRecognizer = textRecognizer;
+    mFrame = frame;
+    mRegionOfInterest = regionOfInterest;
+    mWidth = frame.getWidth();
+    mHeight = frame.getHeight();
+    mRotation = frame.getRotation();
+    mImageDimensions = new ImageDimensions(mWidth, mHeight, mRotation, facing);
     mScaleX = (double) (viewWidth) / (mImageDimensions.getWidth() * density);
     mScaleY = (double) (viewHeight) / (mImageDimensions.getHeight() * density);
     mPaddingLeft = viewPaddingLeft;
@@ -67,19 +71,24 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Vo
 
   @Override
   protected Void doInBackground(Void... ignored) {
-    if (isCancelled() || mDelegate == null) {
+    FrameAnalysisScheduler.applyLanePriority();
+    if (isCancelled() || mDelegate == null || mTextRecognizer == null) {
       return null;
     }
 
+    // text is looked for in the region only and reported in full frame coordinates
+    AnalysisFrame analyzed = mFrame.crop(mRegionOfInterest);
+    mOffsetX = analyzed.getUprightLeft();
+    mOffsetY = analyzed.getUprightTop();
     FirebaseVisionImageMetadata metadata = new FirebaseVisionImageMetadata.Builder()
-            .setWidth(mWidth)
-            .setHeight(mHeight)
-            .setFormat(FirebaseVisionImageMetadata.IMAGE_FORMAT_YV12)
+            .setWidth(analyzed.getWidth())
+            .setHeight(analyzed.getHeight())
+            .setFormat(FirebaseVisionImageMetadata.IMAGE_FORMAT_NV21)
             .setRotation(getFirebaseRotation())
             .build();
-    FirebaseVisionTextRecognizer detector = FirebaseVision.getInstance().getOnDeviceTextRecognizer();
+    FirebaseVisionTextRecognizer detector = mTextRecognizer.getDetector();
 
-    FirebaseVisionImage image = FirebaseVisionImage.fromByteArray(mImageData, metadata);
+    FirebaseVisionImage image = FirebaseVisionImage.fromByteBuffer(analyzed.getDirectData(false), metadata);
     detector.processImage(image)
             .addOnSuccessListener(new OnSuccessListener<FirebaseVisionText>() {
               @Override
@@ -186,7 +195,10 @@ public class TextRecognizerAsyncTask extends android.os.AsyncTask<Void, Void, Vo
     return encodedText;
   }
 
-  private WritableMap processBounds(Rect frame) {
+  private WritableMap processBounds(Rect detectedFrame) {
+    // bounds found on a crop are relative to it
+    Rect frame = new Rect(detectedFrame);
+    frame.offset(mOffsetX, mOffsetY);
     WritableMap origin = Arguments.createMap();
     int x = frame.left;
     int y = frame.top;
@@ -1,5 +1,7 @@
 package org.reactnative.facedetector;
 
+import android.graphics.Rect;
+
 import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReadableMap;
 import com.facebook.react.bridge.WritableMap;
@@ -19,6 +21,16 @@ public class FaceDetectorUtils {
   }
 
   public static WritableMap serializeFace(FirebaseVisionFace face, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop) {
+    return serializeFace(face, scaleX, scaleY, width, height, paddingLeft, paddingTop, 0, 0);
+  }
+
+  /**
+   * @param offsetX Horizontal position of the analyzed region in the upright frame, when the face
+   *                was detected on a crop of it.
+   * @param offsetY Vertical position of the analyzed region in the upright frame.
+   */
+  public static WritableMap serializeFace(FirebaseVisionFace face, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop,
+                                          int offsetX, int offsetY) {
     WritableMap encodedFace = Arguments.createMap();
 
     int id = 0;
@@ -57,22 +69,24 @@ public class FaceDetectorUtils {
     for (int i = 0; i < landmarks.length; ++i) {
       FirebaseVisionFaceLandmark landmark = face.getLandmark(landmarks[i]);
       if (landmark != null) {
-        encodedFace.putMap(landmarkNames[i], mapFromPoint(landmark.getPosition(), scaleX, scaleY, width, height, paddingLeft, paddingTop));
+        encodedFace.putMap(landmarkNames[i], mapFromPoint(landmark.getPosition(), scaleX, scaleY, width, height, paddingLeft, paddingTop, offsetX, offsetY));
       }
     }
 
     WritableMap origin = Arguments.createMap();
-    Float x = face.getBoundingBox().exactCenterX() - (face.getBoundingBox().width() / 2 );
-    Float y = face.getBoundingBox().exactCenterY() - (face.getBoundingBox().height() / 2);
-    if (face.getBoundingBox().exactCenterX() < width / 2) {
+    Rect box = new Rect(face.getBoundingBox());
+    box.offset(offsetX, offsetY);
+    Float x = box.exactCenterX() - (box.width() / 2 );
+    Float y = box.exactCenterY() - (box.height() / 2);
+    if (box.exactCenterX() < width / 2) {
       x = x + paddingLeft / 2;
-    } else if (face.getBoundingBox().exactCenterX() > width / 2) {
+    } else if (box.exactCenterX() > width / 2) {
       x = x - paddingLeft / 2;
     }
 
-    if (face.getBoundingBox().exactCenterY() < height / 2) {
+    if (box.exactCenterY() < height / 2) {
       y = y + paddingTop / 2;
-    } else if (face.getBoundingBox().exactCenterY() > height / 2) {
+    } else if (box.exactCenterY() > height / 2) {
       y = y - paddingTop / 2;
     }
 
@@ -80,8 +94,8 @@ public class FaceDetectorUtils {
     origin.putDouble("y", y * scaleY);
 
     WritableMap size = Arguments.createMap();
-    size.putDouble("width", face.getBoundingBox().width() * scaleX);
-    size.putDouble("height", face.getBoundingBox().height() * scaleY);
+    size.putDouble("width", box.width() * scaleX);
+    size.putDouble("height", box.height() * scaleY);
 
     WritableMap bounds = Arguments.createMap();
     bounds.putMap("origin", origin);
@@ -125,18 +139,25 @@ public class FaceDetectorUtils {
   }
 
   public static WritableMap mapFromPoint(FirebaseVisionPoint point, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop) {
+    return mapFromPoint(point, scaleX, scaleY, width, height, paddingLeft, paddingTop, 0, 0);
+  }
+
+  public static WritableMap mapFromPoint(FirebaseVisionPoint point, double scaleX, double scaleY, int width, int height, int paddingLeft, int paddingTop,
+                                         int offsetX, int offsetY) {
     WritableMap map = Arguments.createMap();
-    Float x = point.getX();
-    Float y = point.getY();
-    if (point.getX() < width / 2) {
+    float pointX = point.getX() + offsetX;
+    float pointY = point.getY() + offsetY;
+    Float x = pointX;
+    Float y = pointY;
+    if (pointX < width / 2) {
       x = (x + paddingLeft / 2);
-    } else if (point.getX() > width / 2) {
+    } else if (pointX > width / 2) {
       x = (x - paddingLeft / 2);
     }
 
-    if (point.getY() < height / 2) {
+    if (pointY < height / 2) {
       y = (y + paddingTop / 2);
-    } else if (point.getY() > height / 2) {
+    } else if (pointY > height / 2) {
       y = (y - paddingTop / 2);
     }
     map.putDouble("x", x * scaleX);
@@ -0,0 +1,43 @@
+package org.reactnative.textrecognizer;
+
+import android.content.Context;
+import android.util.Log;
+
+import com.google.firebase.ml.vision.FirebaseVision;
+import com.google.firebase.ml.vision.text.FirebaseVisionTextRecognizer;
+
+
+public class RNTextRecognizer {
+
+    private FirebaseVisionTextRecognizer mTextRecognizer = null;
+
+    public RNTextRecognizer(Context context) {
+    }
+
+    public boolean isOperational() {
+        // Legacy api from GMV
+        return true;
+    }
+
+    public synchronized FirebaseVisionTextRecognizer getDetector() {
+        if (mTextRecognizer == null) {
+            createTextRecognizer();
+        }
+        return mTextRecognizer;
+    }
+
+    public synchronized void release() {
+        if (mTextRecognizer != null) {
+            try {
+                mTextRecognizer.close();
+            } catch (Exception e) {
+                Log.e("RNCamera", "Attempt to close TextRecognizer failed");
+            }
+            mTextRecognizer = null;
+        }
+    }
+
+    private void createTextRecognizer() {
+        mTextRecognizer = FirebaseVision.getInstance().getOnDeviceTextRecognizer();
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright (C) 2016 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.google.android.cameraview;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Packs synthetic {@code YUV_420_888} planes laid out the ways camera HALs lay them out and
+ * compares the result with NV21 built straight from the sample values.
+ */
+public class Yuv420PackerTest {
+
+    /**
+     * Sample values of a frame, distinct enough that any misplaced byte shows.
+     */
+    private static class Frame {
+        final int width;
+        final int height;
+        final int chromaWidth;
+        final int chromaHeight;
+        final byte[] y;
+        final byte[] u;
+        final byte[] v;
+
+        Frame(int width, int height) {
+            this.width = width;
+            this.height = height;
+            chromaWidth = (width + 1) / 2;
+            chromaHeight = (height + 1) / 2;
+            y = new byte[width * height];
+            u = new byte[chromaWidth * chromaHeight];
+            v = new byte[chromaWidth * chromaHeight];
+            for (int i = 0; i < y.length; i++) {
+                y[i] = (byte) (i * 7 + 3);
+            }
+            for (int i = 0; i < u.length; i++) {
+                u[i] = (byte) (i * 11 + 100);
+                v[i] = (byte) (i * 13 + 200);
+            }
+        }
+
+        byte[] expectedNV21() {
+            byte[] nv21 = new byte[Yuv420Packer.getNV21Size(width, height)];
+            System.arraycopy(y, 0, nv21, 0, y.length);
+            for (int i = 0, out = y.length; i < u.length; i++) {
+                nv21[out++] = v[i];
+                nv21[out++] = u[i];
+            }
+            return nv21;
+        }
+
+        /**
+         * @return The Y plane with {@code rowStride} bytes per row, the last row unpadded.
+         */
+        ByteBuffer luminancePlane(int rowStride) {
+            byte[] plane = new byte[(height - 1) * rowStride + width];
+            for (int row = 0; row < height; row++) {
+                System.arraycopy(y, row * width, plane, row * rowStride, width);
+            }
+            return ByteBuffer.wrap(plane);
+        }
+
+        /**
+         * @return A chroma plane with {@code pixelStride} 1, the last row unpadded.
+         */
+        ByteBuffer planarChroma(byte[] samples, int rowStride) {
+            byte[] plane = new byte[(chromaHeight - 1) * rowStride + chromaWidth];
+            for (int row = 0; row < chromaHeight; row++) {
+                System.arraycopy(samples, row * chromaWidth, plane, row * rowStride, chromaWidth);
+            }
+            return ByteBuffer.wrap(plane);
+        }
+
+        /**
+         * @return Both chroma planes interleaved in one array, {@code first} samples at even
+         * offsets, as the camera writes semi-planar chroma.
+         */
+        byte[] interleavedChroma(byte[] first, byte[] second, int rowStride) {
+            byte[] plane = new byte[(chromaHeight - 1) * rowStride + 2 * chromaWidth];
+            for (int row = 0; row < chromaHeight; row++) {
+                for (int x = 0; x < chromaWidth; x++) {
+                    plane[row * rowStride + 2 * x] = first[row * chromaWidth + x];
+                    plane[row * rowStride + 2 * x + 1] = second[row * chromaWidth + x];
+                }
+            }
+            return plane;
+        }
+    }
+
+    /**
+     * @return A plane over {@code interleaved} starting at {@code offset}, sharing its memory
+     * and ending on the last sample of that plane like the planes of an image do.
+     */
+    private static ByteBuffer slice(byte[] interleaved, int offset) {
+        return ByteBuffer.wrap(interleaved, offset, interleaved.length - 1).slice();
+    }
+
+    private static byte[] pack(Frame frame, ByteBuffer y, int yRowStride, ByteBuffer u, ByteBuffer v,
+                               int uvRowStride, int uvPixelStride) {
+        byte[] out = new byte[Yuv420Packer.getNV21Size(frame.width, frame.height)];
+        Yuv420Packer.packNV21(y, yRowStride, u, v, uvRowStride, uvPixelStride, frame.width, frame.height, out);
+        return out;
+    }
+
+    @Test
+    public void getNV21Size_roundsChromaUp() {
+        assertEquals(640 * 480 * 3 / 2, Yuv420Packer.getNV21Size(640, 480));
+        assertEquals(7 * 5 + 2 * 4 * 3, Yuv420Packer.getNV21Size(7, 5));
+    }
+
+    @Test
+    public void packNV21_planar() {
+        Frame frame = new Frame(16, 8);
+        byte[] out = pack(frame, frame.luminancePlane(16), 16,
+                frame.planarChroma(frame.u, 8), frame.planarChroma(frame.v, 8), 8, 1);
+        assertArrayEquals(frame.expectedNV21(), out);
+    }
+
+    @Test
+    public void packNV21_planarWithPaddedRows() {
+        Frame frame = new Frame(16, 8);
+        byte[] out = pack(frame, frame.luminancePlane(24), 24,
+                frame.planarChroma(frame.u, 16), frame.planarChroma(frame.v, 16), 16, 1);
+        assertArrayEquals(frame.expectedNV21(), out);
+    }
+
+    @Test
+    public void packNV21_semiPlanarVU() {
+        Frame frame = new Frame(16, 8);
+        byte[] chroma = frame.interleavedChroma(frame.v, frame.u, 16);
+        byte[] untouched = chroma.clone();
+        byte[] out = pack(frame, frame.luminancePlane(16), 16, slice(chroma, 1), slice(chroma, 0), 16, 2);
+        assertArrayEquals(frame.expectedNV21(), out);
+        assertArrayEquals(untouched, chroma);
+    }
+
+    @Test
+    public void packNV21_semiPlanarVUWithPaddedRows() {
+        // the V plane ends one byte short of the last U sample, so the last row is completed from the U plane
+        Frame frame = new Frame(16, 8);
+        byte[] chroma = frame.interleavedChroma(frame.v, frame.u, 32);
+        byte[] out = pack(frame, frame.luminancePlane(32), 32, slice(chroma, 1), slice(chroma, 0), 32, 2);
+        assertArrayEquals(frame.expectedNV21(), out);
+    }
+
+    @Test
+    public void packNV21_semiPlanarUV() {
+        Frame frame = new Frame(16, 8);
+        byte[] chroma = frame.interleavedChroma(frame.u, frame.v, 16);
+        byte[] untouched = chroma.clone();
+        byte[] out = pack(frame, frame.luminancePlane(16), 16, slice(chroma, 0), slice(chroma, 1), 16, 2);
+        assertArrayEquals(frame.expectedNV21(), out);
+        assertArrayEquals(untouched, chroma);
+    }
+
+    @Test
+    public void packNV21_semiPlanarUVWithPaddedRows() {
+        Frame frame = new Frame(16, 8);
+        byte[] chroma = frame.interleavedChroma(frame.u, frame.v, 24);
+        byte[] out = pack(frame, frame.luminancePlane(20), 20, slice(chroma, 0), slice(chroma, 1), 24, 2);
+        assertArrayEquals(frame.expectedNV21(), out);
+    }
+
+    @Test
+    public void packNV21_semiPlanarUVOfASingleColor() {
+        // every row matches the layout probe for VU, packing must come out right all the same
+        Frame frame = new Frame(16, 8);
+        Arrays.fill(frame.u, (byte) 90);
+        Arrays.fill(frame.v, (byte) 160);
+        byte[] chroma = frame.interleavedChroma(frame.u, frame.v, 16);
+        byte[] out = pack(frame, frame.luminancePlane(16), 16, slice(chroma, 0), slice(chroma, 1), 16, 2);
+        assertArrayEquals(frame.expectedNV21(), out);
+    }
+
+    @Test
+    public void packNV21_readOnlySemiPlanarVU() {
+        // the planes of an image may be read-only mappings
+        Frame frame = new Frame(16, 8);
+        byte[] chroma = frame.interleavedChroma(frame.v, frame.u, 16);
+        byte[] out = pack(frame, frame.luminancePlane(16).asReadOnlyBuffer(), 16,
+                slice(chroma, 1).asReadOnlyBuffer(), slice(chroma, 0).asReadOnlyBuffer(), 16, 2);
+        assertArrayEquals(frame.expectedNV21(), out);
+    }
+
+    @Test
+    public void packNV21_oddDimensions() {
+        Frame frame = new Frame(7, 5);
+        assertArrayEquals(frame.expectedNV21(), pack(frame, frame.luminancePlane(7), 7,
+                frame.planarChroma(frame.u, 4), frame.planarChroma(frame.v, 4), 4, 1));
+        assertArrayEquals(frame.expectedNV21(), pack(frame, frame.luminancePlane(9), 9,
+                frame.planarChroma(frame.u, 6), frame.planarChroma(frame.v, 6), 6, 1));
+
+        byte[] vu = frame.interleavedChroma(frame.v, frame.u, 10);
+        assertArrayEquals(frame.expectedNV21(), pack(frame, frame.luminancePlane(8), 8,
+                slice(vu, 1), slice(vu, 0), 10, 2));
+
+        byte[] uv = frame.interleavedChroma(frame.u, frame.v, 8);
+        assertArrayEquals(frame.expectedNV21(), pack(frame, frame.luminancePlane(7), 7,
+                slice(uv, 0), slice(uv, 1), 8, 2));
+    }
+
+    @Test
+    public void packNV21_leavesPlanePositionsUntouched() {
+        Frame frame = new Frame(16, 8);
+        ByteBuffer y = frame.luminancePlane(16);
+        ByteBuffer u = frame.planarChroma(frame.u, 8);
+        ByteBuffer v = frame.planarChroma(frame.v, 8);
+        y.position(5);
+        u.position(3);
+        v.position(2);
+        pack(frame, y, 16, u, v, 8, 1);
+        assertEquals(5, y.position());
+        assertEquals(3, u.position());
+        assertEquals(2, v.position());
+    }
+
+    @Test
+    public void packLuminance_paddedRows() {
+        Frame frame = new Frame(7, 5);
+        byte[] out = new byte[Yuv420Packer.getNV21Size(7, 5)];
+        Yuv420Packer.packLuminance(frame.luminancePlane(12), 12, 7, 5, out);
+        byte[] luminance = new byte[7 * 5];
+        System.arraycopy(out, 0, luminance, 0, luminance.length);
+        assertArrayEquals(frame.y, luminance);
+    }
+}
@@ -0,0 +1,141 @@
+package org.reactnative.camera.utils;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import androidx.exifinterface.media.ExifInterface;
+
+import com.drew.imaging.jpeg.JpegMetadataReader;
+import com.drew.metadata.Metadata;
+import com.drew.metadata.exif.ExifIFD0Directory;
+import com.drew.metadata.exif.ExifSubIFDDirectory;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+
+import javax.imageio.ImageIO;
+
+/**
+ * Builds EXIF segments with {@link ExifInterface}, splices them into JPEGs made with ImageIO
+ * and reads the tags back with metadata-extractor, which reports them as stored.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 28)
+public class ExifSplicerTest {
+
+  @Rule
+  public TemporaryFolder mFolder = new TemporaryFolder();
+
+  private static byte[] createJpeg(int width, int height) throws Exception {
+    BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        image.setRGB(x, y, (x * 255 / width) << 16 | (y * 255 / height) << 8);
+      }
+    }
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    ImageIO.write(image, "jpg", outputStream);
+    return outputStream.toByteArray();
+  }
+
+  private static Metadata readMetadata(byte[] jpeg) throws Exception {
+    return JpegMetadataReader.readMetadata(new ByteArrayInputStream(jpeg));
+  }
+
+  private static void assertDimensions(byte[] jpeg, int width, int height) throws Exception {
+    BufferedImage image = ImageIO.read(new ByteArrayInputStream(jpeg));
+    assertEquals(width, image.getWidth());
+    assertEquals(height, image.getHeight());
+
+    Metadata metadata = readMetadata(jpeg);
+    ExifIFD0Directory ifd0 = metadata.getFirstDirectoryOfType(ExifIFD0Directory.class);
+    assertEquals(width, ifd0.getInt(ExifIFD0Directory.TAG_IMAGE_WIDTH));
+    assertEquals(height, ifd0.getInt(ExifIFD0Directory.TAG_IMAGE_HEIGHT));
+    ExifSubIFDDirectory subIfd = metadata.getFirstDirectoryOfType(ExifSubIFDDirectory.class);
+    assertEquals(width, subIfd.getInt(ExifSubIFDDirectory.TAG_EXIF_IMAGE_WIDTH));
+    assertEquals(height, subIfd.getInt(ExifSubIFDDirectory.TAG_EXIF_IMAGE_HEIGHT));
+  }
+
+  /**
+   * Copies the EXIF of a picture as taken, sensor dimensions included, the way the tags of
+   * a picture are carried over to its resized bitmap.
+   */
+  private static final ExifSplicer.Editor TAKEN_PICTURE_EXIF = new ExifSplicer.Editor() {
+    @Override
+    public void edit(ExifInterface exifInterface) {
+      exifInterface.setAttribute(ExifInterface.TAG_MAKE, "RNCamera");
+      exifInterface.setAttribute(ExifInterface.TAG_IMAGE_WIDTH, "64");
+      exifInterface.setAttribute(ExifInterface.TAG_IMAGE_LENGTH, "48");
+      exifInterface.setAttribute(ExifInterface.TAG_PIXEL_X_DIMENSION, "64");
+      exifInterface.setAttribute(ExifInterface.TAG_PIXEL_Y_DIMENSION, "48");
+    }
+  };
+
+  @Test
+  public void insertSegment_resizedImageGetsItsOwnDimensions() throws Exception {
+    byte[] segment = ExifSplicer.buildSegment(null, 32, 24, mFolder.getRoot(), TAKEN_PICTURE_EXIF);
+
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    OutputStream outputStream = ExifSplicer.insertSegment(written, segment);
+    outputStream.write(createJpeg(32, 24));
+    outputStream.close();
+
+    byte[] jpeg = written.toByteArray();
+    assertDimensions(jpeg, 32, 24);
+    assertEquals("RNCamera", readMetadata(jpeg).getFirstDirectoryOfType(ExifIFD0Directory.class)
+        .getString(ExifIFD0Directory.TAG_MAKE));
+  }
+
+  @Test
+  public void writeJpeg_replacesTheSegmentOfTheImage() throws Exception {
+    ByteArrayOutputStream taken = new ByteArrayOutputStream();
+    ExifSplicer.writeJpeg(createJpeg(64, 48),
+        ExifSplicer.buildSegment(null, 64, 48, mFolder.getRoot(), TAKEN_PICTURE_EXIF), taken);
+
+    byte[] segment = ExifSplicer.buildSegment(taken.toByteArray(), 64, 48, mFolder.getRoot(), new ExifSplicer.Editor() {
+      @Override
+      public void edit(ExifInterface exifInterface) {
+        exifInterface.setAttribute(ExifInterface.TAG_MODEL, "Preview");
+      }
+    });
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    ExifSplicer.writeJpeg(taken.toByteArray(), segment, written);
+
+    byte[] jpeg = written.toByteArray();
+    assertDimensions(jpeg, 64, 48);
+    ExifIFD0Directory ifd0 = readMetadata(jpeg).getFirstDirectoryOfType(ExifIFD0Directory.class);
+    assertEquals("RNCamera", ifd0.getString(ExifIFD0Directory.TAG_MAKE));
+    assertEquals("Preview", ifd0.getString(ExifIFD0Directory.TAG_MODEL));
+    assertEquals(1, readMetadata(jpeg).getDirectoriesOfType(ExifIFD0Directory.class).size());
+  }
+
+  @Test
+  public void buildSegment_withoutSizeLeavesTheDimensionsToTheEditor() throws Exception {
+    ByteArrayOutputStream taken = new ByteArrayOutputStream();
+    ExifSplicer.writeJpeg(createJpeg(64, 48),
+        ExifSplicer.buildSegment(null, 64, 48, mFolder.getRoot(), TAKEN_PICTURE_EXIF), taken);
+
+    byte[] segment = ExifSplicer.buildSegment(taken.toByteArray(), 0, 0, mFolder.getRoot(), new ExifSplicer.Editor() {
+      @Override
+      public void edit(ExifInterface exifInterface) {
+        exifInterface.setAttribute(ExifInterface.TAG_IMAGE_WIDTH, null);
+        exifInterface.setAttribute(ExifInterface.TAG_IMAGE_LENGTH, null);
+      }
+    });
+    ByteArrayOutputStream written = new ByteArrayOutputStream();
+    ExifSplicer.writeJpeg(taken.toByteArray(), segment, written);
+
+    ExifIFD0Directory ifd0 = readMetadata(written.toByteArray()).getFirstDirectoryOfType(ExifIFD0Directory.class);
+    assertFalse(ifd0.containsTag(ExifIFD0Directory.TAG_IMAGE_WIDTH));
+    assertFalse(ifd0.containsTag(ExifIFD0Directory.TAG_IMAGE_HEIGHT));
+  }
+}
@@ -0,0 +1,416 @@
+package org.reactnative.camera.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.w3c.dom.Node;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Random;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.metadata.IIOMetadataNode;
+import javax.imageio.stream.ImageOutputStream;
+
+/**
+ * Encodes pictures with the JDK's JPEG writer, rotates them and compares the decoded result with
+ * the original picture rotated pixel by pixel. The JDK writes color pictures with 2x2 chroma
+ * subsampling, so their MCUs are 16 pixels wide and high.
+ */
+public class LosslessJpegRotationTest {
+  private static final String JPEG_METADATA_FORMAT = "javax_imageio_jpeg_image_1.0";
+  private static final int TAG_ORIENTATION = 0x0112;
+  private static final int TAG_IMAGE_WIDTH = 0x0100;
+  private static final int TAG_IMAGE_LENGTH = 0x0101;
+  private static final int TAG_EXIF_IFD = 0x8769;
+  private static final int TAG_PIXEL_X_DIMENSION = 0xA002;
+  private static final int TAG_PIXEL_Y_DIMENSION = 0xA003;
+  private static final int TYPE_SHORT = 3;
+  private static final int TYPE_LONG = 4;
+
+  private static BufferedImage createPicture(int width, int height, int type) {
+    BufferedImage picture = new BufferedImage(width, height, type);
+    Random random = new Random(width * 31 + height);
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int red = x * 255 / width;
+        int green = y * 255 / height;
+        int blue = ((x ^ y) & 0xFF) ^ random.nextInt(32);
+        picture.setRGB(x, y, (red << 16) | (green << 8) | blue);
+      }
+    }
+    return picture;
+  }
+
+  private static byte[] encode(BufferedImage picture, int restartInterval, boolean progressive) throws IOException {
+    ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+    ImageWriteParam param = writer.getDefaultWriteParam();
+    param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+    param.setCompressionQuality(0.9f);
+    if (progressive) {
+      param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+    }
+    IIOMetadata metadata = writer.getDefaultImageMetadata(new ImageTypeSpecifier(picture), param);
+    if (restartInterval > 0) {
+      Node root = metadata.getAsTree(JPEG_METADATA_FORMAT);
+      Node markerSequence = root.getLastChild();
+      IIOMetadataNode dri = new IIOMetadataNode("dri");
+      dri.setAttribute("interval", Integer.toString(restartInterval));
+      markerSequence.insertBefore(dri, markerSequence.getFirstChild());
+      metadata.setFromTree(JPEG_METADATA_FORMAT, root);
+    }
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ImageOutputStream imageOut = ImageIO.createImageOutputStream(out);
+    writer.setOutput(imageOut);
+    writer.write(null, new IIOImage(picture, null, metadata), param);
+    imageOut.close();
+    writer.dispose();
+    return out.toByteArray();
+  }
+
+  private static BufferedImage decode(byte[] jpeg) throws IOException {
+    BufferedImage picture = ImageIO.read(new ByteArrayInputStream(jpeg));
+    assertNotNull("rotated data doesn't decode", picture);
+    return picture;
+  }
+
+  /**
+   * Inserts an EXIF segment right after SOI, with an orientation in IFD0 and the pixel dimensions
+   * in the EXIF IFD, the width as a LONG and the height as a SHORT.
+   */
+  private static byte[] withExif(byte[] jpeg, boolean littleEndian, int orientation, int width, int height) {
+    TiffWriter tiff = new TiffWriter(littleEndian);
+    tiff.put(littleEndian ? 0x4949 : 0x4D4D, 2);
+    tiff.put(42, 2);
+    tiff.put(8, 4);
+    // IFD0 at 8: 4 entries, then the EXIF IFD at 8 + 2 + 4 * 12 + 4 = 62
+    tiff.put(4, 2);
+    tiff.entry(TAG_IMAGE_WIDTH, TYPE_LONG, width);
+    tiff.entry(TAG_IMAGE_LENGTH, TYPE_SHORT, height);
+    tiff.entry(TAG_ORIENTATION, TYPE_SHORT, orientation);
+    tiff.entry(TAG_EXIF_IFD, TYPE_LONG, 62);
+    tiff.put(0, 4);
+    tiff.put(2, 2);
+    tiff.entry(TAG_PIXEL_X_DIMENSION, TYPE_LONG, width);
+    tiff.entry(TAG_PIXEL_Y_DIMENSION, TYPE_SHORT, height);
+    tiff.put(0, 4);
+    byte[] tiffData = tiff.toByteArray();
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(0xFF);
+    out.write(0xD8);
+    out.write(0xFF);
+    out.write(0xE1);
+    int length = 2 + 6 + tiffData.length;
+    out.write(length >> 8);
+    out.write(length & 0xFF);
+    out.write(new byte[]{'E', 'x', 'i', 'f', 0, 0}, 0, 6);
+    out.write(tiffData, 0, tiffData.length);
+    out.write(jpeg, 2, jpeg.length - 2);
+    return out.toByteArray();
+  }
+
+  private static class TiffWriter {
+    private final ByteArrayOutputStream mOut = new ByteArrayOutputStream();
+    private final boolean mLittleEndian;
+
+    TiffWriter(boolean littleEndian) {
+      mLittleEndian = littleEndian;
+    }
+
+    void put(int value, int size) {
+      for (int i = 0; i < size; i++) {
+        int shift = mLittleEndian ? 8 * i : 8 * (size - 1 - i);
+        mOut.write((value >> shift) & 0xFF);
+      }
+    }
+
+    void entry(int tag, int type, int value) {
+      put(tag, 2);
+      put(type, 2);
+      put(1, 4);
+      if (type == TYPE_SHORT) {
+        put(value, 2);
+        put(0, 2);
+      } else {
+        put(value, 4);
+      }
+    }
+
+    byte[] toByteArray() {
+      return mOut.toByteArray();
+    }
+  }
+
+  /**
+   * @return The value of a SHORT or LONG tag in IFD0 or the EXIF IFD, or -1 if it's missing.
+   */
+  private static int readExifTag(byte[] jpeg, int tag) {
+    int tiff = -1;
+    for (int i = 2; i + 10 < jpeg.length; i++) {
+      if ((jpeg[i] & 0xFF) == 0xFF && (jpeg[i + 1] & 0xFF) == 0xE1 && jpeg[i + 4] == 'E' && jpeg[i + 5] == 'x') {
+        tiff = i + 10;
+        break;
+      }
+    }
+    assertTrue("EXIF segment missing", tiff >= 0);
+    boolean littleEndian = jpeg[tiff] == 'I';
+    int ifd = tiff + read(jpeg, tiff + 4, 4, littleEndian);
+    int exifIfd = -1;
+    for (int pass = 0; pass < 2 && ifd >= tiff; pass++) {
+      int count = read(jpeg, ifd, 2, littleEndian);
+      for (int i = 0; i < count; i++) {
+        int entry = ifd + 2 + 12 * i;
+        int entryTag = read(jpeg, entry, 2, littleEndian);
+        int type = read(jpeg, entry + 2, 2, littleEndian);
+        int value = read(jpeg, entry + 8, type == TYPE_SHORT ? 2 : 4, littleEndian);
+        if (entryTag == tag) {
+          return value;
+        }
+        if (entryTag == TAG_EXIF_IFD) {
+          exifIfd = tiff + value;
+        }
+      }
+      ifd = exifIfd;
+    }
+    return -1;
+  }
+
+  private static int read(byte[] data, int pos, int size, boolean littleEndian) {
+    int value = 0;
+    for (int i = 0; i < size; i++) {
+      int b = data[pos + (littleEndian ? size - 1 - i : i)] & 0xFF;
+      value = (value << 8) | b;
+    }
+    return value;
+  }
+
+  private static boolean hasMarker(byte[] jpeg, int marker) {
+    int pos = 2;
+    while (pos + 4 <= jpeg.length && (jpeg[pos] & 0xFF) == 0xFF) {
+      int found = jpeg[pos + 1] & 0xFF;
+      if (found == marker) {
+        return true;
+      }
+      if (found == 0xDA) {
+        return false;
+      }
+      pos += 2 + (((jpeg[pos + 2] & 0xFF) << 8) | (jpeg[pos + 3] & 0xFF));
+    }
+    return false;
+  }
+
+  /**
+   * Asserts that {@code rotated} shows {@code original} turned clockwise by {@code degrees},
+   * within the rounding of the color conversion.
+   */
+  private static void assertRotated(BufferedImage original, BufferedImage rotated, int degrees) {
+    int width = original.getWidth();
+    int height = original.getHeight();
+    boolean sideways = degrees == 90 || degrees == 270;
+    assertEquals(sideways ? height : width, rotated.getWidth());
+    assertEquals(sideways ? width : height, rotated.getHeight());
+    long total = 0;
+    int max = 0;
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        int rotatedX;
+        int rotatedY;
+        if (degrees == 90) {
+          rotatedX = height - 1 - y;
+          rotatedY = x;
+        } else if (degrees == 180) {
+          rotatedX = width - 1 - x;
+          rotatedY = height - 1 - y;
+        } else {
+          rotatedX = y;
+          rotatedY = width - 1 - x;
+        }
+        int expected = original.getRGB(x, y);
+        int actual = rotated.getRGB(rotatedX, rotatedY);
+        for (int shift = 0; shift < 24; shift += 8) {
+          int difference = Math.abs(((expected >> shift) & 0xFF) - ((actual >> shift) & 0xFF));
+          total += difference;
+          max = Math.max(max, difference);
+        }
+      }
+    }
+    assertTrue(degrees + " degrees: largest difference " + max, max <= 3);
+    assertTrue(degrees + " degrees: mean difference " + total / (3.0 * width * height),
+        total <= 0.5 * 3 * width * height);
+  }
+
+  @Test
+  public void rotate_quarterTurnsMatchPixelRotation() throws IOException {
+    byte[] jpeg = encode(createPicture(64, 48, BufferedImage.TYPE_INT_RGB), 0, false);
+    BufferedImage original = decode(jpeg);
+    for (int degrees = 90; degrees < 360; degrees += 90) {
+      byte[] rotated = LosslessJpegRotation.rotate(jpeg, degrees);
+      assertNotNull(degrees + " degrees", rotated);
+      assertRotated(original, decode(rotated), degrees);
+    }
+  }
+
+  @Test
+  public void rotate_grayscaleMatchesPixelRotation() throws IOException {
+    // a single component is coded block by block, so 8 pixel alignment is enough
+    byte[] jpeg = encode(createPicture(40, 24, BufferedImage.TYPE_BYTE_GRAY), 0, false);
+    BufferedImage original = decode(jpeg);
+    for (int degrees = 90; degrees < 360; degrees += 90) {
+      byte[] rotated = LosslessJpegRotation.rotate(jpeg, degrees);
+      assertNotNull(degrees + " degrees", rotated);
+      BufferedImage decoded = decode(rotated);
+      // compare raw samples, getRGB would spread rounding through the gray to sRGB conversion
+      BufferedImage expected = new BufferedImage(decoded.getWidth(), decoded.getHeight(), BufferedImage.TYPE_BYTE_GRAY);
+      for (int y = 0; y < original.getHeight(); y++) {
+        for (int x = 0; x < original.getWidth(); x++) {
+          int sample = original.getRaster().getSample(x, y, 0);
+          if (degrees == 90) {
+            expected.getRaster().setSample(original.getHeight() - 1 - y, x, 0, sample);
+          } else if (degrees == 180) {
+            expected.getRaster().setSample(original.getWidth() - 1 - x, original.getHeight() - 1 - y, 0, sample);
+          } else {
+            expected.getRaster().setSample(y, original.getWidth() - 1 - x, 0, sample);
+          }
+        }
+      }
+      for (int y = 0; y < decoded.getHeight(); y++) {
+        for (int x = 0; x < decoded.getWidth(); x++) {
+          int difference = Math.abs(expected.getRaster().getSample(x, y, 0) - decoded.getRaster().getSample(x, y, 0));
+          assertTrue(degrees + " degrees at " + x + "," + y, difference <= 1);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void rotate_fourQuarterTurnsReproduceOriginal() throws IOException {
+    byte[] jpeg = encode(createPicture(64, 48, BufferedImage.TYPE_INT_RGB), 0, false);
+    byte[] turned = jpeg;
+    for (int i = 0; i < 4; i++) {
+      // the picture is 48 wide after the first turn, so only quarter turns to the right keep it aligned
+      turned = LosslessJpegRotation.rotate(turned, 90);
+      assertNotNull("turn " + (i + 1), turned);
+    }
+    // the coefficients are moved around without any rounding, so the pixels come back exactly
+    BufferedImage original = decode(jpeg);
+    BufferedImage result = decode(turned);
+    assertEquals(original.getWidth(), result.getWidth());
+    assertEquals(original.getHeight(), result.getHeight());
+    for (int y = 0; y < original.getHeight(); y++) {
+      for (int x = 0; x < original.getWidth(); x++) {
+        assertEquals(original.getRGB(x, y), result.getRGB(x, y));
+      }
+    }
+    assertEquals(jpeg.length, turned.length);
+  }
+
+  @Test
+  public void rotate_restartIntervals() throws IOException {
+    byte[] jpeg = encode(createPicture(64, 48, BufferedImage.TYPE_INT_RGB), 3, false);
+    assertTrue(hasMarker(jpeg, 0xDD));
+    BufferedImage original = decode(jpeg);
+    for (int degrees = 90; degrees < 360; degrees += 90) {
+      byte[] rotated = LosslessJpegRotation.rotate(jpeg, degrees);
+      assertNotNull(degrees + " degrees", rotated);
+      // restart markers are not written again, so the interval goes too
+      assertFalse(hasMarker(rotated, 0xDD));
+      assertRotated(original, decode(rotated), degrees);
+    }
+  }
+
+  @Test
+  public void rotate_progressiveReturnsNull() throws IOException {
+    byte[] jpeg = encode(createPicture(64, 48, BufferedImage.TYPE_INT_RGB), 0, true);
+    assertTrue(hasMarker(jpeg, 0xC2));
+    assertNull(LosslessJpegRotation.rotate(jpeg, 90));
+    assertNull(LosslessJpegRotation.rotate(jpeg, 180));
+    assertNull(LosslessJpegRotation.rotate(jpeg, 270));
+  }
+
+  @Test
+  public void rotate_unalignedEdgesReturnNull() throws IOException {
+    // 90 degrees needs the height on an MCU boundary, 270 the width, 180 both
+    byte[] unalignedWidth = encode(createPicture(72, 48, BufferedImage.TYPE_INT_RGB), 0, false);
+    assertNotNull(LosslessJpegRotation.rotate(unalignedWidth, 90));
+    assertNull(LosslessJpegRotation.rotate(unalignedWidth, 180));
+    assertNull(LosslessJpegRotation.rotate(unalignedWidth, 270));
+
+    byte[] unalignedHeight = encode(createPicture(64, 40, BufferedImage.TYPE_INT_RGB), 0, false);
+    assertNull(LosslessJpegRotation.rotate(unalignedHeight, 90));
+    assertNull(LosslessJpegRotation.rotate(unalignedHeight, 180));
+    assertNotNull(LosslessJpegRotation.rotate(unalignedHeight, 270));
+  }
+
+  @Test
+  public void rotate_unsupportedInputReturnsNull() throws IOException {
+    byte[] jpeg = encode(createPicture(64, 48, BufferedImage.TYPE_INT_RGB), 0, false);
+    assertNull(LosslessJpegRotation.rotate(jpeg, 0));
+    assertNull(LosslessJpegRotation.rotate(jpeg, 45));
+    assertNull(LosslessJpegRotation.rotate(new byte[]{1, 2, 3, 4, 5}, 90));
+    byte[] truncated = new byte[jpeg.length / 2];
+    System.arraycopy(jpeg, 0, truncated, 0, truncated.length);
+    assertNull(LosslessJpegRotation.rotate(truncated, 90));
+  }
+
+  @Test
+  public void rotate_dataAfterPictureReturnsNull() throws IOException {
+    byte[] jpeg = encode(createPicture(64, 48, BufferedImage.TYPE_INT_RGB), 0, false);
+    ByteArrayOutputStream trailer = new ByteArrayOutputStream();
+    trailer.write(jpeg, 0, jpeg.length);
+    // a secondary image, as multi-picture files append them
+    trailer.write(jpeg, 0, jpeg.length);
+    assertNull(LosslessJpegRotation.rotate(trailer.toByteArray(), 90));
+
+    // padding is no data
+    byte[] padded = new byte[jpeg.length + 16];
+    System.arraycopy(jpeg, 0, padded, 0, jpeg.length);
+    assertNotNull(LosslessJpegRotation.rotate(padded, 90));
+  }
+
+  @Test
+  public void rotate_patchesExif() throws IOException {
+    for (boolean littleEndian : new boolean[]{false, true}) {
+      byte[] jpeg = withExif(encode(createPicture(64, 48, BufferedImage.TYPE_INT_RGB), 0, false),
+          littleEndian, 6, 64, 48);
+      assertEquals(6, readExifTag(jpeg, TAG_ORIENTATION));
+
+      byte[] rotated = LosslessJpegRotation.rotate(jpeg, 90);
+      assertNotNull(rotated);
+      assertEquals(1, readExifTag(rotated, TAG_ORIENTATION));
+      assertEquals(48, readExifTag(rotated, TAG_IMAGE_WIDTH));
+      assertEquals(64, readExifTag(rotated, TAG_IMAGE_LENGTH));
+      assertEquals(48, readExifTag(rotated, TAG_PIXEL_X_DIMENSION));
+      assertEquals(64, readExifTag(rotated, TAG_PIXEL_Y_DIMENSION));
+      assertRotated(decode(jpeg), decode(rotated), 90);
+
+      // half turns keep the dimensions
+      byte[] halfTurn = LosslessJpegRotation.rotate(jpeg, 180);
+      assertNotNull(halfTurn);
+      assertEquals(1, readExifTag(halfTurn, TAG_ORIENTATION));
+      assertEquals(64, readExifTag(halfTurn, TAG_PIXEL_X_DIMENSION));
+      assertEquals(48, readExifTag(halfTurn, TAG_PIXEL_Y_DIMENSION));
+    }
+  }
+
+  @Test
+  public void rotate_leavesInputUntouched() throws IOException {
+    byte[] jpeg = withExif(encode(createPicture(64, 48, BufferedImage.TYPE_INT_RGB), 0, false), true, 6, 64, 48);
+    byte[] copy = jpeg.clone();
+    assertNotNull(LosslessJpegRotation.rotate(jpeg, 90));
+    assertArrayEquals(copy, jpeg);
+  }
+}
@@ -0,0 +1,60 @@
+package org.reactnative.camera.utils;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the tiled luminance rotation against the per pixel loop it replaced,
+ * on 1080p and 4K planes. Timings have no place in the regular test run, it runs on its own:
+ *
+ * <pre>
+ * ./gradlew luminanceRotationBenchmark
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 8, time = 1)
+@Fork(2)
+public class LuminanceRotationBenchmark {
+  @Param({"1920x1080", "3840x2160"})
+  public String size;
+
+  private int mWidth;
+  private int mHeight;
+  private byte[] mPlane;
+  private byte[] mRotated;
+
+  @Setup
+  public void setUp() {
+    String[] dimensions = size.split("x");
+    mWidth = Integer.parseInt(dimensions[0]);
+    mHeight = Integer.parseInt(dimensions[1]);
+    mPlane = LuminanceRotationTest.createPlane(mWidth, mHeight);
+    mRotated = new byte[mWidth * mHeight];
+  }
+
+  @Benchmark
+  public byte[] perPixelLoop() {
+    LuminanceRotationTest.referenceClockwise(mPlane, mWidth, 0, 0, mWidth, mHeight, mRotated);
+    return mRotated;
+  }
+
+  @Benchmark
+  public byte[] tiled() {
+    LuminanceRotation.rotateClockwise(mPlane, mWidth, 0, 0, mWidth, mHeight, mRotated);
+    return mRotated;
+  }
+}
@@ -0,0 +1,72 @@
+package org.reactnative.camera.utils;
+
+import static org.junit.Assert.assertArrayEquals;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+/**
+ * Compares the tiled rotations with a plain per pixel rotation, on sizes that are and aren't
+ * multiples of the tile size and on regions inside a larger plane.
+ */
+public class LuminanceRotationTest {
+
+  static byte[] createPlane(int width, int height) {
+    byte[] plane = new byte[width * height];
+    new Random(width * 31 + height).nextBytes(plane);
+    return plane;
+  }
+
+  /**
+   * The rotation the analyzers used before the tiled kernel, one destination column per source row.
+   */
+  static void referenceClockwise(byte[] src, int dataWidth, int left, int top, int width, int height, byte[] dst) {
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        dst[x * height + height - y - 1] = src[(top + y) * dataWidth + left + x];
+      }
+    }
+  }
+
+  static void referenceCounterClockwise(byte[] src, int dataWidth, int left, int top, int width, int height, byte[] dst) {
+    for (int y = 0; y < height; y++) {
+      for (int x = 0; x < width; x++) {
+        dst[(width - 1 - x) * height + y] = src[(top + y) * dataWidth + left + x];
+      }
+    }
+  }
+
+  private static void assertRotations(int dataWidth, int dataHeight, int left, int top, int width, int height) {
+    byte[] plane = createPlane(dataWidth, dataHeight);
+    byte[] expected = new byte[width * height];
+    byte[] actual = new byte[width * height];
+
+    referenceClockwise(plane, dataWidth, left, top, width, height, expected);
+    LuminanceRotation.rotateClockwise(plane, dataWidth, left, top, width, height, actual);
+    assertArrayEquals("clockwise " + width + "x" + height, expected, actual);
+
+    referenceCounterClockwise(plane, dataWidth, left, top, width, height, expected);
+    LuminanceRotation.rotateCounterClockwise(plane, dataWidth, left, top, width, height, actual);
+    assertArrayEquals("counter clockwise " + width + "x" + height, expected, actual);
+  }
+
+  @Test
+  public void rotate_wholePlane() {
+    assertRotations(1920, 1080, 0, 0, 1920, 1080);
+    assertRotations(640, 480, 0, 0, 640, 480);
+  }
+
+  @Test
+  public void rotate_sizesOffTheTileGrid() {
+    assertRotations(33, 17, 0, 0, 33, 17);
+    assertRotations(1, 1, 0, 0, 1, 1);
+    assertRotations(31, 65, 0, 0, 31, 65);
+  }
+
+  @Test
+  public void rotate_regionInsideLargerPlane() {
+    assertRotations(1280, 720, 101, 37, 333, 250);
+    assertRotations(64, 64, 32, 32, 32, 32);
+  }
+}
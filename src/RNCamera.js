@@ -282,10 +282,22 @@ type PropsType = typeof View.props & {
   captureAudio?: boolean,
   keepAudioSession?: boolean,
   useCamera2Api?: boolean,
+  scanMultipleBarCodes?: boolean,
+  frameBufferPoolSize?: number,
+  frameQueueSize?: number,
+  analysisResolution?:
+    | { width: number, height: number }
+    | { maxPixels: number }
+    | { barCodeModules: number, pixelsPerModule?: number, barCodeCoverage?: number },
+  analysisLanes?: { [lane: string]: { threads?: number, priority?: number } },
+  analysisRates?: { [analyzer: string]: number },
+  motionGate?: boolean,
+  motionThreshold?: number,
   playSoundOnCapture?: boolean,
   videoStabilizationMode?: number | string,
   pictureSize?: string,
   rectOfInterest: Rect,
+  cropToRectOfInterest?: boolean,
 };
 
 type StateType = {
@@ -441,11 +453,20 @@ export default class Camera extends React.Component<PropsType, StateType> {
     captureAudio: PropTypes.bool,
     keepAudioSession: PropTypes.bool,
     useCamera2Api: PropTypes.bool,
+    scanMultipleBarCodes: PropTypes.bool,
+    frameBufferPoolSize: PropTypes.number,
+    frameQueueSize: PropTypes.number,
+    analysisResolution: PropTypes.object,
+    analysisLanes: PropTypes.object,
+    analysisRates: PropTypes.object,
+    motionGate: PropTypes.bool,
+    motionThreshold: PropTypes.number,
     playSoundOnCapture: PropTypes.bool,
     videoStabilizationMode: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
     pictureSize: PropTypes.string,
     mirrorVideo: PropTypes.bool,
     rectOfInterest: PropTypes.any,
+    cropToRectOfInterest: PropTypes.bool,
     defaultVideoQuality: PropTypes.oneOfType([PropTypes.string, PropTypes.number]),
   };
 
@@ -566,6 +587,22 @@ export default class Camera extends React.Component<PropsType, StateType> {
     }
   };
 
+  getFrameAnalysisStatsAsync = async (): Promise<{}> => {
+    if (Platform.OS === 'android') {
+      return await CameraManager.getFrameAnalysisStats(this._cameraHandle);
+    } else {
+      throw new Error('getFrameAnalysisStatsAsync is not supported on iOS');
+    }
+  };
+
+  getFrameStreamStatsAsync = async (): Promise<{}> => {
+    if (Platform.OS === 'android') {
+      return await CameraManager.getFrameStreamStats(this._cameraHandle);
+    } else {
+      throw new Error('getFrameStreamStatsAsync is not supported on iOS');
+    }
+  };
+
   getAvailablePictureSizes = async (): string[] => {
     //$FlowFixMe
     return await CameraManager.getAvailablePictureSizes(this.props.ratio, this._cameraHandle);
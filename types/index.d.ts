@@ -154,6 +154,10 @@ export interface BarCodeReadEvent {
    * Raw image bytes in JPEG format (quality 100) as Base64-encoded string, only provided if `detectedImageInEvent=true`.
    */
   image: string;
+  /**
+   * Android only, every barcode read from the frame when `scanMultipleBarCodes` is enabled.
+   */
+  barcodes?: Array<Pick<BarCodeReadEvent, 'data' | 'rawData' | 'type' | 'bounds'>>;
 }
 
 export interface GoogleVisionBarcodesDetectedEvent {
@@ -248,6 +252,36 @@ export interface RNCameraProps {
   permissionDialogMessage?: string;
   /** Android only */
   playSoundOnCapture?: boolean;
+  /** Android only */
+  scanMultipleBarCodes?: boolean;
+  /** Android only */
+  frameBufferPoolSize?: number;
+  /** Android only */
+  frameQueueSize?: number;
+  /** Android only */
+  analysisResolution?:
+    | { width: number; height: number }
+    | { maxPixels: number }
+    | { barCodeModules: number; pixelsPerModule?: number; barCodeCoverage?: number };
+  /** Android only */
+  analysisLanes?: {
+    [lane in 'barCodeScanner' | 'faceDetector' | 'googleBarcodeDetector' | 'textRecognizer']?: {
+      priority?: number;
+    };
+  } & {
+    picture?: {
+      threads?: number;
+      priority?: number;
+    };
+  };
+  /** Android only */
+  analysisRates?: {
+    [analyzer in 'barCodeScanner' | 'faceDetector' | 'googleBarcodeDetector' | 'textRecognizer']?: number;
+  };
+  /** Android only */
+  motionGate?: boolean;
+  /** Android only */
+  motionThreshold?: number;
 
   androidCameraPermissionOptions?: {
     title: string;
@@ -267,6 +301,8 @@ export interface RNCameraProps {
 
   // limiting scan area, must provide cameraViewDimensions for Android
   cameraViewDimensions?: Object;
+  /** Android only */
+  cropToRectOfInterest?: boolean;
 
   // -- IOS ONLY PROPS
   videoStabilizationMode?: keyof VideoStabilization;
@@ -479,10 +515,43 @@ export class RNCamera extends Component<RNCameraProps & ViewProperties> {
   /** Android only */
   getSupportedRatiosAsync(): Promise<string[]>;
 
+  /** Android only */
+  getFrameAnalysisStatsAsync(): Promise<FrameAnalysisStats>;
+
+  /** Android only */
+  getFrameStreamStatsAsync(): Promise<FrameStreamStats>;
+
   /** iOS only */
   isRecording(): Promise<boolean>;
 }
 
+interface FrameAnalyzerStats {
+  analyzed: number;
+  dropped: number;
+  throttled: number;
+}
+
+interface FrameAnalysisStats {
+  barCodeScanner: FrameAnalyzerStats;
+  faceDetector: FrameAnalyzerStats;
+  googleBarcodeDetector: FrameAnalyzerStats;
+  textRecognizer: FrameAnalyzerStats;
+  frameBufferPoolMisses: number;
+  stillFrames: number;
+  frameCopies: {
+    count: number;
+    averageMs: number;
+    maxMs: number;
+  };
+}
+
+interface FrameStreamStats {
+  produced: number;
+  acquired: number;
+  skipped: number;
+  queueSize: number;
+}
+
 interface DetectionOptions {
   mode?: keyof FaceDetectionMode;
   detectLandmarks?: keyof FaceDetectionLandmarks;